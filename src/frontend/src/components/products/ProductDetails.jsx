@@ -18,6 +18,7 @@ const ProductDetails = (props) => {
   return (
     <ProductWrapper
       product={product}
+      imageSize="detail"
       onDelete={onDeleteHandler}
       imgPreview
       coverImageProps={{ objectFit: 'cover', width: '100%', maxHeight: '600px' }}>
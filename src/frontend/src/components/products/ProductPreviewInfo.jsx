@@ -19,6 +19,7 @@ const ProductPreviewInfo = (props) => {
   return (
     <ProductWrapper
       product={product}
+      imageSize="thumbnail"
       onClick={onCardClickHandler}
       hoverable
       style={{
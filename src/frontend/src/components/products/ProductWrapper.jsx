@@ -11,6 +11,8 @@ const ProductWrapper = (props) => {
   const { state, deleteProduct, updateProduct } = useContext(ProductContext);
   const [isModalVisible, setIsModalVisible] = useState(false);
   const { product } = props;
+  const hasImage = product.imageId || product.productImage;
+  const imageUrl = `/api/v1/products/${product.id}/image`;
 
   const onEditClickHandler = (e) => {
     e.stopPropagation();
@@ -24,8 +26,8 @@ const ProductWrapper = (props) => {
 
   const onUpdateSubmitHandler = async (productId, values) => {
     props.onUpdate
-      ? await props.onUpdate(productId, values)
-      : await updateProduct(productId, values);
+      ? await props.onUpdate(productId, values, product.version)
+      : await updateProduct(productId, values, product.version);
     setIsModalVisible(false);
   };
 
@@ -57,11 +59,13 @@ const ProductWrapper = (props) => {
         }}
         cover={
           <Image
-            preview={props.imgPreview ? props.imgPreview : false}
+            preview={props.imgPreview && hasImage ? { src: imageUrl } : !!props.imgPreview}
             alt="image"
             src={
-              product.productImage
-                ? `data:image/png;base64,${product.productImage.data}`
+              hasImage
+                ? props.imageSize
+                  ? `${imageUrl}?size=${props.imageSize}`
+                  : imageUrl
                 : defaultImage
             }
             style={
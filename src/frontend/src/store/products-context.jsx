@@ -1,4 +1,4 @@
-import React, { useState } from 'react';
+import React, { useRef, useState } from 'react';
 import { useEffect } from 'react';
 import { errorNotification, successNotification } from '../components/UI/Notification';
 import useAxiosRequest, { State } from '../hooks/useAxiosRequest';
@@ -14,10 +14,22 @@ const ProductContext = React.createContext({
   getProductById: () => {}
 });
 
+const catalogOrder = (a, b) => Number(b.isAvailable) - Number(a.isAvailable) || a.id - b.id;
+
+const applyChanges = (products, changes) => {
+  const replacedIds = new Set([...changes.products.map((product) => product.id), ...changes.deletedIds]);
+  return products
+    .filter((product) => !replacedIds.has(product.id))
+    .concat(changes.products)
+    .sort(catalogOrder);
+};
+
 export const ProductContextProvider = (props) => {
   const [productList, setProductList] = useState([]);
   const [currentProductById, setCurrentProductById] = useState(null);
   const [state, sendRequest] = useAxiosRequest();
+  const filtersRef = useRef(null);
+  const syncVersionRef = useRef(null);
 
   useEffect(() => {
     if (state && state.error && state.errMsg && state.status === State.ERROR) {
@@ -25,10 +37,56 @@ export const ProductContextProvider = (props) => {
     }
   }, [state]);
 
-  const fetchProductsHandler = async () => {
-    await sendRequest({ url: '/api/v1/products' }, (data) => setProductList(() => data));
+  const fetchProductsHandler = async (filters) => {
+    filtersRef.current = filters;
+    if (filters) {
+      syncVersionRef.current = null;
+      await sendRequest({ url: '/api/v1/products', params: filters }, (data) =>
+        setProductList(() => data)
+      );
+      return;
+    }
+    // the unfiltered catalog is kept in sync and only downloads what changed since the last fetch
+    const since = syncVersionRef.current;
+    await sendRequest(
+      { url: '/api/v1/products/changes', params: since === null ? {} : { since } },
+      (data) => {
+        syncVersionRef.current = data.version;
+        setProductList((products) => applyChanges(since === null ? [] : products, data));
+      }
+    );
   };
 
+  useEffect(() => {
+    const changes = new EventSource('/api/v1/products/stream');
+    const replaceProduct = (event) => {
+      const { product } = JSON.parse(event.data);
+      setProductList((products) =>
+        products.map((current) => (current.id === product.id ? product : current))
+      );
+      setCurrentProductById((current) => (current && current.id === product.id ? product : current));
+    };
+    const addProduct = (event) => {
+      const { product } = JSON.parse(event.data);
+      // a filtered list can not tell whether the new product belongs to it
+      filtersRef.current
+        ? fetchProductsHandler(filtersRef.current)
+        : setProductList((products) => [...products, product]);
+    };
+    const removeProduct = (event) => {
+      const { productId } = JSON.parse(event.data);
+      setProductList((products) => products.filter((current) => current.id !== productId));
+    };
+    const reload = () => fetchProductsHandler(filtersRef.current);
+
+    changes.addEventListener('created', addProduct);
+    changes.addEventListener('updated', replaceProduct);
+    changes.addEventListener('deleted', removeProduct);
+    changes.addEventListener('imported', reload);
+    changes.addEventListener('reset', reload);
+    return () => changes.close();
+  }, []);
+
   const getProductByIdHandler = async (productId) => {
     await sendRequest({ url: `/api/v1/products/${productId}` }, setCurrentProductById);
   };
@@ -58,7 +116,6 @@ export const ProductContextProvider = (props) => {
           `Product created successfully`,
           `Product ${data.name} was successfully created`
         );
-        fetchProductsHandler();
       }
     );
   };
@@ -69,22 +126,24 @@ export const ProductContextProvider = (props) => {
         `Product deleted successfully`,
         `Product with id ${productId} was successfully deleted`
       );
-      fetchProductsHandler();
     });
   };
 
-  const updateProductHandler = async (productId, data) => {
+  const updateProductHandler = async (productId, data, version) => {
     const formData = createFormDataFromFormValues(data);
 
     await sendRequest(
-      { url: `/api/v1/products/${productId}`, method: 'PUT', data: formData },
+      {
+        url: `/api/v1/products/${productId}`,
+        method: 'PUT',
+        data: formData,
+        headers: { 'If-Match': `"${version}"` }
+      },
       (res) => {
         successNotification(
           `Product updated successfully`,
           `Product ${res.name} was successfully updated`
         );
-        fetchProductsHandler();
-        getProductByIdHandler(productId);
       }
     );
   };
@@ -77,6 +77,7 @@ public class SecurityConfig {
                     .antMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                     .antMatchers("/api/v1/auth/**").permitAll()
                     .antMatchers(HttpMethod.GET, "/api/v1/products/**").permitAll()
+                    .antMatchers(HttpMethod.POST, "/api/v1/products/batch").permitAll()
                     .antMatchers(WHITELISTED_REACT_ENDPOINTS).permitAll()
                     .antMatchers(WHITELISTED_RESOURCE_ENDPOINTS).permitAll()
                     .anyRequest().authenticated()
@@ -1,7 +1,11 @@
 package com.filip.managementapp.controller;
 
+import com.filip.managementapp.exception.ApiBadRequestException;
+import com.filip.managementapp.exception.ApiConflictException;
 import com.filip.managementapp.exception.ApiExceptionResponse;
 import com.filip.managementapp.exception.ApiForbiddenException;
+import com.filip.managementapp.exception.ApiPreconditionFailedException;
+import com.filip.managementapp.exception.ApiPreconditionRequiredException;
 import com.filip.managementapp.exception.ResourceAlreadyExistsException;
 import com.filip.managementapp.exception.ResourceNotFoundException;
 import org.slf4j.Logger;
@@ -9,6 +13,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -33,6 +38,11 @@ public class ApiExceptionControllerAdvice {
         return logAndCreateResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST, e.getClass().getName());
     }
 
+    @ExceptionHandler(value = ApiBadRequestException.class)
+    public ResponseEntity<Object> handleApiBadRequestException(ApiBadRequestException e) {
+        return logAndCreateResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST, e.getClass().getName());
+    }
+
     @ExceptionHandler(value = AuthenticationException.class)
     public ResponseEntity<Object> handleAuthenticationException(AuthenticationException e) {
         return logAndCreateResponseEntity(e.getMessage(), HttpStatus.UNAUTHORIZED, e.getClass().getName());
@@ -43,6 +53,31 @@ public class ApiExceptionControllerAdvice {
         return logAndCreateResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST, e.getClass().getName());
     }
 
+    @ExceptionHandler(value = ApiConflictException.class)
+    public ResponseEntity<Object> handleApiConflictException(ApiConflictException e) {
+        return logAndCreateResponseEntity(e.getMessage(), HttpStatus.CONFLICT, e.getClass().getName());
+    }
+
+    @ExceptionHandler(value = ApiPreconditionFailedException.class)
+    public ResponseEntity<Object> handleApiPreconditionFailedException(ApiPreconditionFailedException e) {
+        ResponseEntity<Object> response =
+                logAndCreateResponseEntity(e.getMessage(), HttpStatus.PRECONDITION_FAILED, e.getClass().getName());
+        if (e.getETag() == null) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode()).eTag(e.getETag()).body(response.getBody());
+    }
+
+    @ExceptionHandler(value = ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handlePreconditionFailedException(Exception e) {
+        return logAndCreateResponseEntity(e.getMessage(), HttpStatus.PRECONDITION_FAILED, e.getClass().getName());
+    }
+
+    @ExceptionHandler(value = ApiPreconditionRequiredException.class)
+    public ResponseEntity<Object> handleApiPreconditionRequiredException(ApiPreconditionRequiredException e) {
+        return logAndCreateResponseEntity(e.getMessage(), HttpStatus.PRECONDITION_REQUIRED, e.getClass().getName());
+    }
+
     @ExceptionHandler(value = {UsernameNotFoundException.class, ResourceNotFoundException.class})
     public ResponseEntity<Object> handleResourceNotFoundException(Exception e) {
         return logAndCreateResponseEntity(e.getMessage(), HttpStatus.NOT_FOUND, e.getClass().getName());
@@ -1,15 +1,42 @@
 package com.filip.managementapp.controller;
 
-import com.filip.managementapp.dto.ProductDto;
+import com.filip.managementapp.dto.ImageFileMetadata;
+import com.filip.managementapp.dto.ProductBatch;
+import com.filip.managementapp.dto.ProductBatchRequest;
+import com.filip.managementapp.dto.ProductChanges;
+import com.filip.managementapp.dto.ProductCursorPage;
+import com.filip.managementapp.dto.ProductFacets;
+import com.filip.managementapp.dto.ProductFilter;
+import com.filip.managementapp.dto.ProductImportReport;
+import com.filip.managementapp.dto.ProductPatchRequest;
 import com.filip.managementapp.dto.ProductRequest;
+import com.filip.managementapp.dto.ProductSuggestion;
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.dto.StockChangeRequest;
+import com.filip.managementapp.exception.ApiBadRequestException;
+import com.filip.managementapp.exception.ApiPreconditionFailedException;
+import com.filip.managementapp.exception.ApiPreconditionRequiredException;
+import com.filip.managementapp.model.ImageVariantSize;
+import com.filip.managementapp.service.ProductChangeFeed;
+import com.filip.managementapp.service.ProductExportService;
+import com.filip.managementapp.service.ProductImageService;
+import com.filip.managementapp.service.ProductImportService;
 import com.filip.managementapp.service.ProductService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("api/v1/products")
@@ -17,29 +44,221 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:3000", allowCredentials = "true")
 public class ProductController {
 
+    public static final String IF_MATCH_REQUIRED_STRING = "If-Match header with the product version is required";
+    public static final String IF_MATCH_MISMATCH_STRING = "Product with id %d does not match %s";
+    public static final String IDS_WITH_PAGE_STRING = "Product ids can not be combined with a page size";
+
+    // images stored before uploads were inspected carry whatever type the client declared
+    private static final Set<String> INLINE_IMAGE_TYPES = Set.of(
+            MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_GIF_VALUE, "image/webp"
+    );
+
     private final ProductService productService;
+    private final ProductImageService productImageService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
+    private final ProductChangeFeed productChangeFeed;
 
     @GetMapping
-    public List<ProductDto> findAllProducts() {
-        return productService.findAllProducts();
+    public ResponseEntity<List<ProductSummaryDto>> findAllProducts(ProductFilter filter, WebRequest webRequest) {
+        return catalogResponse(webRequest, () -> productService.findAllProducts(filter));
+    }
+
+    @GetMapping(params = "size")
+    public ResponseEntity<ProductCursorPage> findProductsPage(@RequestParam("size") int size,
+                                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                                              ProductFilter filter,
+                                                              WebRequest webRequest) {
+        return catalogResponse(webRequest, () -> productService.findProductsPage(cursor, size, filter));
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<ProductBatch> findProductsByIds(@RequestParam("ids") List<Long> ids, WebRequest webRequest) {
+        return catalogResponse(webRequest, () -> productService.findProductsByIds(ids));
+    }
+
+    // without it a request with both parameters would match the page and the batch lookup alike
+    @GetMapping(params = {"ids", "size"})
+    public ResponseEntity<ProductBatch> findProductsByIdsWithPage() {
+        throw new ApiBadRequestException(IDS_WITH_PAGE_STRING);
+    }
+
+    @PostMapping("/batch")
+    public ProductBatch findProductsByIds(@RequestBody @Valid ProductBatchRequest batchRequest) {
+        return productService.findProductsByIds(batchRequest.ids());
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacets> findProductFacets(WebRequest webRequest) {
+        return catalogResponse(webRequest, productService::findProductFacets);
+    }
+
+    @GetMapping("/changes")
+    public ProductChanges findProductChanges(@RequestParam(value = "since", required = false) Long since) {
+        return productService.findProductChanges(since);
+    }
+
+    @GetMapping("/search")
+    public List<ProductSummaryDto> searchProducts(@RequestParam("q") String query,
+                                                  @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return productService.searchProducts(query, limit);
+    }
+
+    @GetMapping("/suggest")
+    public List<ProductSuggestion> suggestProducts(@RequestParam("prefix") String prefix,
+                                                   @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return productService.suggestProducts(prefix, limit);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProductChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return productChangeFeed.subscribe(lastEventId);
     }
 
     @GetMapping("/{id}")
-    public ProductDto findProductById(@PathVariable("id") Long id) {
-        return productService.findProductById(id);
+    public ResponseEntity<ProductSummaryDto> findProductById(@PathVariable("id") Long id, WebRequest webRequest) {
+        ProductSummaryDto product = productService.findProductById(id);
+        // the product version rather than the catalog version, so the tag can be sent back as If-Match
+        String eTag = "\"" + product.version() + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(product);
+    }
+
+    @GetMapping("/{id}/image")
+    public ResponseEntity<StreamingResponseBody> findProductImage(@PathVariable("id") Long id,
+                                                                  @RequestParam(value = "size", required = false) String imageSize,
+                                                                  @RequestHeader HttpHeaders requestHeaders,
+                                                                  WebRequest webRequest) {
+        ImageVariantSize variantSize = imageSize == null ? null : ImageVariantSize.fromParameter(imageSize);
+        ImageFileMetadata image = productImageService.findProductImageMetadata(id, variantSize);
+        String eTag = image.isVariant()
+                ? "\"" + image.id() + "-" + image.variant().parameterValue() + "\""
+                : "\"" + image.id() + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        long size = image.size();
+        long offset = 0;
+        long length = size;
+        HttpStatus status = HttpStatus.OK;
+        HttpHeaders responseHeaders = new HttpHeaders();
+
+        HttpRange range = findSingleRange(requestHeaders, eTag);
+        if (range != null) {
+            offset = range.getRangeStart(size);
+            if (offset >= size) {
+                responseHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return new ResponseEntity<>(responseHeaders, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            }
+            length = range.getRangeEnd(size) - offset + 1;
+            status = HttpStatus.PARTIAL_CONTENT;
+            responseHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes %d-%d/%d".formatted(offset, offset + length - 1, size));
+        }
+
+        String contentType = image.contentType() == null ? null : image.contentType().trim().toLowerCase(Locale.ROOT);
+        if (INLINE_IMAGE_TYPES.contains(contentType)) {
+            responseHeaders.setContentType(MediaType.parseMediaType(contentType));
+            responseHeaders.setContentDisposition(ContentDisposition.inline().filename(image.filename()).build());
+        } else {
+            responseHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            responseHeaders.setContentDisposition(ContentDisposition.attachment().filename(image.filename()).build());
+        }
+        responseHeaders.setContentLength(length);
+        responseHeaders.setETag(eTag);
+        responseHeaders.setCacheControl(CacheControl.noCache().cachePublic());
+        responseHeaders.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        responseHeaders.set("X-Content-Type-Options", "nosniff");
+
+        long bodyOffset = offset;
+        long bodyLength = length;
+        StreamingResponseBody body = outputStream ->
+                productImageService.writeImageData(image, bodyOffset, bodyLength, outputStream);
+        return new ResponseEntity<>(body, responseHeaders, status);
     }
 
     @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public ProductDto saveProduct(@ModelAttribute @Valid ProductRequest productRequest) {
+    public ProductSummaryDto saveProduct(@ModelAttribute @Valid ProductRequest productRequest) {
         return productService.saveProduct(productRequest);
     }
 
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ProductImportReport importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                              InputStream body) throws IOException {
+        return productImportService.importProducts(body, contentType);
+    }
+
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        ProductExportService.Format exportFormat = ProductExportService.Format.fromParameter(format);
+        StreamingResponseBody body = outputStream -> productExportService.exportProducts(exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("products." + exportFormat.fileExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
     @PutMapping("/{id}")
-    public ProductDto updateProduct(@PathVariable("id") Long id, @ModelAttribute @Valid ProductRequest productRequest) {
-        return productService.updateProduct(id, productRequest);
+    public ResponseEntity<ProductSummaryDto> updateProduct(@PathVariable("id") Long id,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                           @ModelAttribute @Valid ProductRequest productRequest) {
+        ProductSummaryDto updatedProduct = productService.updateProduct(id, productRequest, parseExpectedVersion(id, ifMatch));
+        return ResponseEntity.ok()
+                .eTag("\"" + updatedProduct.version() + "\"")
+                .body(updatedProduct);
+    }
+
+    @PostMapping("/{id}/reserve")
+    public ProductSummaryDto reserveStock(@PathVariable("id") Long id,
+                                          @RequestBody @Valid StockChangeRequest stockChangeRequest) {
+        return productService.reserveStock(id, stockChangeRequest.quantity());
+    }
+
+    // nothing ties a release to an earlier reservation, so only admins may put stock back
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    @PostMapping("/{id}/release")
+    public ProductSummaryDto releaseStock(@PathVariable("id") Long id,
+                                          @RequestBody @Valid StockChangeRequest stockChangeRequest) {
+        return productService.releaseStock(id, stockChangeRequest.quantity());
+    }
+
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    @PutMapping("/{id}/hot-stock")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void enableHotStock(@PathVariable("id") Long id) {
+        productService.enableHotStock(id);
+    }
+
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    @DeleteMapping("/{id}/hot-stock")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void disableHotStock(@PathVariable("id") Long id) {
+        productService.disableHotStock(id);
+    }
+
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ProductSummaryDto> patchProduct(@PathVariable("id") Long id,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                          @RequestBody @Valid ProductPatchRequest patchRequest) {
+        ProductSummaryDto patchedProduct = productService.patchProduct(id, patchRequest, parseExpectedVersion(id, ifMatch));
+        return ResponseEntity.ok()
+                .eTag("\"" + patchedProduct.version() + "\"")
+                .body(patchedProduct);
     }
 
     @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
@@ -48,4 +267,50 @@ public class ProductController {
     public void deleteProductById(@PathVariable("id") Long id) {
         productService.deleteProduct(id);
     }
+
+    private <T> ResponseEntity<T> catalogResponse(WebRequest webRequest, Supplier<T> body) {
+        // the version is read before the body, so a concurrent change can only make the tag older than the data
+        String eTag = "\"" + productService.getCatalogVersion() + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(body.get());
+    }
+
+    /**
+     * Reads the product version from a single strong entity tag. {@code *} matches any version.
+     */
+    private Long parseExpectedVersion(Long productId, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            throw new ApiPreconditionRequiredException(IF_MATCH_REQUIRED_STRING);
+        }
+        String eTag = ifMatch.strip();
+        if (eTag.equals("*")) {
+            return null;
+        }
+        if (eTag.length() > 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+            try {
+                return Long.valueOf(eTag.substring(1, eTag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // not a tag this API issued, so it can not match
+            }
+        }
+        throw new ApiPreconditionFailedException(String.format(IF_MATCH_MISMATCH_STRING, productId, eTag));
+    }
+
+    private HttpRange findSingleRange(HttpHeaders requestHeaders, String eTag) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(eTag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = requestHeaders.getRange();
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
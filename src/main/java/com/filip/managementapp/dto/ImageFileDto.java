@@ -27,7 +27,7 @@ public record ImageFileDto(String filename,
         return "ImageFileDto{" +
                 "filename='" + filename + '\'' +
                 ", contentType='" + contentType + '\'' +
-                ", dataLength='" + data.length + '\'' +
+                ", dataLength='" + (data == null ? 0 : data.length) + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,22 @@
+package com.filip.managementapp.dto;
+
+import com.filip.managementapp.model.ImageVariantSize;
+
+/**
+ * Describes either an original image ({@code variant} is {@code null}) or one of its downscaled variants,
+ * in which case {@code id} is the id of the variant row.
+ */
+public record ImageFileMetadata(Long id,
+                                String filename,
+                                String contentType,
+                                long size,
+                                ImageVariantSize variant) {
+
+    public ImageFileMetadata(Long id, String filename, String contentType, long size) {
+        this(id, filename, contentType, size, null);
+    }
+
+    public boolean isVariant() {
+        return variant != null;
+    }
+}
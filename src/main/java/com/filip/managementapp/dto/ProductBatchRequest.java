@@ -0,0 +1,11 @@
+package com.filip.managementapp.dto;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+public record ProductBatchRequest(
+        @NotEmpty(message = "Product ids are required")
+        List<@NotNull(message = "Product id must not be null") Long> ids
+) {
+}
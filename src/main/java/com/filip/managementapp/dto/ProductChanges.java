@@ -0,0 +1,10 @@
+package com.filip.managementapp.dto;
+
+import java.util.List;
+
+/**
+ * Products created or updated and ids of products deleted since a client's last sync. {@code version} is
+ * passed back as {@code since} on the next sync; a product may be listed again then, but never skipped.
+ */
+public record ProductChanges(List<ProductSummaryDto> products, List<Long> deletedIds, long version) {
+}
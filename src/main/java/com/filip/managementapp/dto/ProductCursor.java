@@ -0,0 +1,36 @@
+package com.filip.managementapp.dto;
+
+import com.filip.managementapp.exception.ApiBadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last product of a catalog page in the {@code (isAvailable DESC, id ASC)} ordering.
+ * Clients only ever see it as an opaque URL-safe token.
+ */
+public record ProductCursor(Boolean isAvailable, Long id) {
+
+    public static final String INVALID_CURSOR_STRING = "Invalid cursor '%s'";
+
+    public static ProductCursor of(ProductSummaryDto product) {
+        return new ProductCursor(product.isAvailable(), product.id());
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 2 || !(parts[0].equals("1") || parts[0].equals("0"))) {
+                throw new IllegalArgumentException();
+            }
+            return new ProductCursor(parts[0].equals("1"), Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new ApiBadRequestException(String.format(INVALID_CURSOR_STRING, token));
+        }
+    }
+
+    public String encode() {
+        String value = (Boolean.TRUE.equals(isAvailable) ? "1" : "0") + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
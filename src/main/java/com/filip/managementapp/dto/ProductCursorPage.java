@@ -0,0 +1,7 @@
+package com.filip.managementapp.dto;
+
+import java.util.List;
+
+public record ProductCursorPage(List<ProductSummaryDto> content,
+                                String nextCursor) {
+}
@@ -8,6 +8,7 @@ public record ProductDto(
         Long quantity,
         Double price,
         Boolean isAvailable,
-        ImageFileDto productImage
+        ImageFileDto productImage,
+        Long version
 ) {
 }
@@ -0,0 +1,13 @@
+package com.filip.managementapp.dto;
+
+import java.util.List;
+
+public record ProductFacets(List<PriceBucket> price,
+                            long available,
+                            long unavailable,
+                            long inStock,
+                            long outOfStock) {
+
+    public record PriceBucket(double from, Double to, long count) {
+    }
+}
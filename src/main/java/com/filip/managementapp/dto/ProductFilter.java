@@ -0,0 +1,20 @@
+package com.filip.managementapp.dto;
+
+public record ProductFilter(Double minPrice,
+                            Double maxPrice,
+                            Boolean isAvailable,
+                            Long minQuantity,
+                            String name) {
+
+    public static ProductFilter empty() {
+        return new ProductFilter(null, null, null, null, null);
+    }
+
+    public boolean isEmpty() {
+        return minPrice == null
+                && maxPrice == null
+                && isAvailable == null
+                && minQuantity == null
+                && (name == null || name.isBlank());
+    }
+}
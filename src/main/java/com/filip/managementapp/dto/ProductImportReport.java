@@ -0,0 +1,11 @@
+package com.filip.managementapp.dto;
+
+import java.util.List;
+
+public record ProductImportReport(long imported,
+                                  long failed,
+                                  List<RowError> errors) {
+
+    public record RowError(long row, String message) {
+    }
+}
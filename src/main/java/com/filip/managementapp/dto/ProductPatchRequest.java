@@ -0,0 +1,32 @@
+package com.filip.managementapp.dto;
+
+import org.hibernate.validator.constraints.Length;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Pattern;
+
+/**
+ * Partial product update; {@code null} leaves a field unchanged.
+ */
+public record ProductPatchRequest(
+        @Pattern(regexp = ".*\\S.*", message = "Product name is required")
+        @Length(max = 128, message = "Product name can be only 128 characters long")
+        String name,
+
+        @Pattern(regexp = ".*\\S.*", message = "Short description of the product is required")
+        @Length(max = 40, message = "Short description can be only 40 characters long")
+        String shortDescription,
+
+        @Pattern(regexp = "(?s).*\\S.*", message = "Product description is required")
+        @Length(max = 1024, message = "Description can be only 1024 characters long")
+        String description,
+
+        @Min(value = 0, message = "Minimum quantity of product is 0!")
+        Long quantity,
+
+        @Min(value = 0, message = "Minimum price of product is 0.0!")
+        Double price,
+
+        Boolean isAvailable
+) {
+}
@@ -0,0 +1,4 @@
+package com.filip.managementapp.dto;
+
+public record ProductSuggestion(Long id, String name) {
+}
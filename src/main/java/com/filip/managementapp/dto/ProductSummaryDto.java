@@ -0,0 +1,14 @@
+package com.filip.managementapp.dto;
+
+public record ProductSummaryDto(
+        Long id,
+        String name,
+        String shortDescription,
+        String description,
+        Long quantity,
+        Double price,
+        Boolean isAvailable,
+        Long imageId,
+        Long version
+) {
+}
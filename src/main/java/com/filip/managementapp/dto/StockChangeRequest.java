@@ -0,0 +1,11 @@
+package com.filip.managementapp.dto;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+public record StockChangeRequest(
+        @NotNull(message = "Quantity is required")
+        @Min(value = 1, message = "Quantity must be at least 1")
+        Long quantity
+) {
+}
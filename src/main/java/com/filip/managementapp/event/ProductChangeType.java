@@ -0,0 +1,7 @@
+package com.filip.managementapp.event;
+
+public enum ProductChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,37 @@
+package com.filip.managementapp.event;
+
+import com.filip.managementapp.dto.ProductSummaryDto;
+
+import java.util.Objects;
+
+/**
+ * Published by {@link com.filip.managementapp.service.ProductService} for every product mutation.
+ * {@code product} holds the state after the change and is {@code null} for {@link ProductChangeType#DELETED}.
+ * {@code imageChanged} tells whether the change made the product point at a different image.
+ */
+public record ProductChangedEvent(ProductChangeType type,
+                                  Long productId,
+                                  ProductSummaryDto product,
+                                  boolean imageChanged) {
+
+    public static ProductChangedEvent created(ProductSummaryDto product) {
+        return new ProductChangedEvent(ProductChangeType.CREATED, product.id(), product, product.imageId() != null);
+    }
+
+    /**
+     * A change that left the image alone, such as a patch or a stock update.
+     */
+    public static ProductChangedEvent updated(ProductSummaryDto product) {
+        return new ProductChangedEvent(ProductChangeType.UPDATED, product.id(), product, false);
+    }
+
+    public static ProductChangedEvent updated(ProductSummaryDto product, Long previousImageId) {
+        return new ProductChangedEvent(
+                ProductChangeType.UPDATED, product.id(), product, !Objects.equals(previousImageId, product.imageId())
+        );
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(ProductChangeType.DELETED, productId, null, false);
+    }
+}
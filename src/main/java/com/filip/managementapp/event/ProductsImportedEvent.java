@@ -0,0 +1,8 @@
+package com.filip.managementapp.event;
+
+/**
+ * Published once a bulk import has stored new products. Imported rows do not get an individual
+ * {@link ProductChangedEvent}, so read models reload instead of applying thousands of patches.
+ */
+public record ProductsImportedEvent(long count) {
+}
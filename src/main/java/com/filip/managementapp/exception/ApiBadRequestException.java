@@ -0,0 +1,12 @@
+package com.filip.managementapp.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class ApiBadRequestException extends RuntimeException {
+
+    public ApiBadRequestException(String message) {
+        super(message);
+    }
+}
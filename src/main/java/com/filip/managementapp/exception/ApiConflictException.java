@@ -0,0 +1,12 @@
+package com.filip.managementapp.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ApiConflictException extends RuntimeException {
+
+    public ApiConflictException(String message) {
+        super(message);
+    }
+}
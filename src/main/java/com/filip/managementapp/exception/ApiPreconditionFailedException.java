@@ -0,0 +1,26 @@
+package com.filip.managementapp.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class ApiPreconditionFailedException extends RuntimeException {
+
+    private final String eTag;
+
+    public ApiPreconditionFailedException(String message) {
+        this(message, null);
+    }
+
+    /**
+     * @param eTag current entity tag of the resource, sent back so the client can retry without another read
+     */
+    public ApiPreconditionFailedException(String message, String eTag) {
+        super(message);
+        this.eTag = eTag;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+}
@@ -0,0 +1,12 @@
+package com.filip.managementapp.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_REQUIRED)
+public class ApiPreconditionRequiredException extends RuntimeException {
+
+    public ApiPreconditionRequiredException(String message) {
+        super(message);
+    }
+}
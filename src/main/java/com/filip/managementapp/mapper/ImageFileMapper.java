@@ -5,17 +5,16 @@ import com.filip.managementapp.model.ImageFile;
 import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
-import org.springframework.web.multipart.MultipartFile;
-
-import java.io.IOException;
 
 @Mapper(componentModel = "spring", injectionStrategy = InjectionStrategy.CONSTRUCTOR)
 public interface ImageFileMapper {
 
     ImageFileDto imageFileToImageFileDto(ImageFile imageFile);
-    ImageFile imageFileDtoToImageFile(ImageFileDto imageFileDto);
 
-    @Mapping(source = "originalFilename", target = "filename")
-    @Mapping(source = "bytes", target = "data")
-    ImageFile multipartFileToImageFile(MultipartFile multipartFile) throws IOException;
+    // bookkeeping columns are filled by the storage layer, not by the upload
+    @Mapping(target = "dataSize", ignore = true)
+    @Mapping(target = "sha256", ignore = true)
+    @Mapping(target = "referenceCount", ignore = true)
+    @Mapping(target = "variantsProcessed", ignore = true)
+    ImageFile imageFileDtoToImageFile(ImageFileDto imageFileDto);
 }
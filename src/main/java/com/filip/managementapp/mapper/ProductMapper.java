@@ -2,6 +2,7 @@ package com.filip.managementapp.mapper;
 
 import com.filip.managementapp.dto.ProductDto;
 import com.filip.managementapp.dto.ProductRequest;
+import com.filip.managementapp.dto.ProductSummaryDto;
 import com.filip.managementapp.model.Product;
 import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
@@ -12,8 +13,14 @@ public interface ProductMapper {
 
     ProductDto productToProductDto(Product product);
 
+    @Mapping(source = "productImage.id", target = "imageId")
+    ProductSummaryDto productToProductSummaryDto(Product product);
+
     Product productDtoToProduct(ProductDto productDto);
 
+    // uploads are streamed into storage by ProductImageService rather than read into the entity
+    @Mapping(target = "productImage", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Product productRequestToProduct(ProductRequest productRequest);
 
     @Mapping(target = "productImage", ignore = true)
@@ -1,13 +1,16 @@
 package com.filip.managementapp.model;
 
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 import java.io.Serial;
 import java.io.Serializable;
 
 @Entity
-@Table(name = "images")
+@Table(name = "images", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_images_sha256", columnNames = "sha256")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -29,7 +32,49 @@ public class ImageFile implements Serializable {
     @Column(nullable = false)
     private String contentType;
 
-    @Column(nullable = false)
+    /**
+     * Only set when the image is kept in the database, see {@link com.filip.managementapp.storage.ImageStore}.
+     * Fetched on first access thanks to bytecode enhancement, so loading the row for its metadata leaves it alone.
+     */
     @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @ToString.Exclude
     private byte[] data;
+
+    /**
+     * Length of the image in bytes. Images stored before it was recorded only know it from their large object.
+     */
+    private Long dataSize;
+
+    /**
+     * Hex encoded SHA-256 of {@link #data}, used to share one row between products uploading the same bytes.
+     * Images stored before deduplication have none and are never shared.
+     */
+    @Column(length = 64)
+    private String sha256;
+
+    /**
+     * Number of products pointing at this image. Only ever changed through bulk updates in
+     * {@link com.filip.managementapp.repository.ImageFileRepository}, because updating the entity
+     * would rewrite the whole large object.
+     */
+    @Column(nullable = false)
+    @ColumnDefault("1")
+    private Long referenceCount = 1L;
+
+    /**
+     * Set once variant generation has run for the image, also when it produced no variants because the image
+     * is small or can not be decoded. Claimed through
+     * {@link com.filip.managementapp.repository.ImageFileRepository#markVariantsProcessed(Long)}.
+     */
+    @Column(nullable = false)
+    @ColumnDefault("false")
+    private Boolean variantsProcessed = false;
+
+    public ImageFile(Long id, String filename, String contentType, byte[] data) {
+        this.id = id;
+        this.filename = filename;
+        this.contentType = contentType;
+        this.data = data;
+    }
 }
@@ -0,0 +1,56 @@
+package com.filip.managementapp.model;
+
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.*;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Downscaled copy of an {@link ImageFile}, generated in the background after the original is stored.
+ */
+@Entity
+@Table(name = "image_variants", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_image_variants_image_id_variant", columnNames = {"image_id", "variant"})
+})
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class ImageVariant implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 912847120396175L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "image_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private ImageFile image;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "variant", nullable = false, length = 16)
+    private ImageVariantSize size;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    @Column(nullable = false)
+    private Integer width;
+
+    @Column(nullable = false)
+    private Integer height;
+
+    @Column(nullable = false)
+    @Lob
+    private byte[] data;
+}
@@ -0,0 +1,39 @@
+package com.filip.managementapp.model;
+
+import com.filip.managementapp.exception.ApiBadRequestException;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+public enum ImageVariantSize {
+    THUMBNAIL(320),
+    DETAIL(960);
+
+    public static final String INVALID_IMAGE_SIZE_STRING = "Invalid image size '%s', expected one of %s";
+
+    private final int maxDimension;
+
+    ImageVariantSize(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public String parameterValue() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static ImageVariantSize fromParameter(String value) {
+        return Arrays.stream(values())
+                .filter(size -> size.parameterValue().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new ApiBadRequestException(String.format(
+                        INVALID_IMAGE_SIZE_STRING,
+                        value,
+                        Arrays.stream(values()).map(ImageVariantSize::parameterValue).collect(Collectors.joining(", "))
+                )));
+    }
+}
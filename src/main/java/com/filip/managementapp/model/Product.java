@@ -1,13 +1,20 @@
 package com.filip.managementapp.model;
 
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.io.Serial;
 import java.io.Serializable;
 
 @Entity
-@Table(name = "products")
+@DynamicUpdate
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_is_available_id", columnList = "isAvailable DESC, id"),
+        @Index(name = "idx_products_price", columnList = "price"),
+        @Index(name = "idx_products_quantity", columnList = "quantity")
+})
 @Getter
 @Setter
 @Builder
@@ -42,9 +49,20 @@ public class Product implements Serializable {
     @Column(nullable = false)
     private Boolean isAvailable;
 
-    @OneToOne(cascade = CascadeType.ALL)
+    /**
+     * Only the id is needed to point at the image, so the row is not read until one of its other fields is.
+     * Left out of equality and {@code toString} for the same reason.
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     private ImageFile productImage;
 
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
     public Product(Long id, String name, String shortDescription, String description, Long quantity, Double price, Boolean isAvailable) {
         this.id = id;
         this.name = name;
@@ -54,4 +72,10 @@ public class Product implements Serializable {
         this.price = price;
         this.isAvailable = isAvailable;
     }
+
+    public Product(Long id, String name, String shortDescription, String description, Long quantity, Double price,
+                   Boolean isAvailable, ImageFile productImage) {
+        this(id, name, shortDescription, description, quantity, price, isAvailable);
+        this.productImage = productImage;
+    }
 }
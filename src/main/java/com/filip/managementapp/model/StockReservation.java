@@ -0,0 +1,37 @@
+package com.filip.managementapp.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * One reservation, or a release with a negative quantity, of a hot product that is not written to
+ * {@code products.quantity} yet. Rows are only ever inserted and then deleted by the flush that writes them.
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_stock_reservations_product_id", columnList = "productId")
+})
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class StockReservation implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 530218841720953L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Long quantity;
+}
@@ -0,0 +1,31 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.dto.ImageFileMetadata;
+import com.filip.managementapp.model.ImageVariantSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+
+/**
+ * Blob access for {@link com.filip.managementapp.model.ImageFile} and its
+ * {@link com.filip.managementapp.model.ImageVariant}s that never materializes the whole image
+ * as a {@code byte[]}. All methods run inside a read-only transaction, because the database may only
+ * keep large objects open while one is active.
+ */
+public interface ImageDataRepository {
+
+    Optional<ImageFileMetadata> findImageMetadataByProductId(Long productId);
+
+    void copyImageData(Long imageId, long offset, long length, OutputStream outputStream) throws IOException;
+
+    /**
+     * Streams {@code length} bytes into a new large object of an image row inserted in the current transaction.
+     */
+    void writeImageData(Long imageId, InputStream inputStream, long length);
+
+    Optional<ImageFileMetadata> findImageVariantMetadataByProductId(Long productId, ImageVariantSize size);
+
+    void copyImageVariantData(Long variantId, long offset, long length, OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,137 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.dto.ImageFileMetadata;
+import com.filip.managementapp.model.ImageVariantSize;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Blob;
+import java.util.Optional;
+
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+class ImageDataRepositoryImpl implements ImageDataRepository {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final String FIND_METADATA_BY_PRODUCT_ID_SQL = """
+            select i.id, i.filename, i.content_type, i.data_size, i.data
+            from products p join images i on i.id = p.product_image_id
+            where p.id = ?
+            """;
+
+    private static final String FIND_DATA_BY_ID_SQL = "select data from images where id = ?";
+
+    private static final String UPDATE_DATA_BY_ID_SQL = "update images set data = ? where id = ?";
+
+    private static final String FIND_VARIANT_METADATA_BY_PRODUCT_ID_SQL = """
+            select v.id, i.filename, v.content_type, null as data_size, v.data
+            from products p
+                join images i on i.id = p.product_image_id
+                join image_variants v on v.image_id = i.id
+            where p.id = ? and v.variant = ?
+            """;
+
+    private static final String FIND_VARIANT_DATA_BY_ID_SQL = "select data from image_variants where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<ImageFileMetadata> findImageMetadataByProductId(Long productId) {
+        return findMetadata(FIND_METADATA_BY_PRODUCT_ID_SQL, null, productId);
+    }
+
+    @Override
+    public void copyImageData(Long imageId, long offset, long length, OutputStream outputStream) throws IOException {
+        copyData(FIND_DATA_BY_ID_SQL, imageId, offset, length, outputStream);
+    }
+
+    /**
+     * The driver copies the stream into the large object in small chunks rather than binding it as one value.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void writeImageData(Long imageId, InputStream inputStream, long length) {
+        jdbcTemplate.update(UPDATE_DATA_BY_ID_SQL, statement -> {
+            statement.setBlob(1, inputStream, length);
+            statement.setLong(2, imageId);
+        });
+    }
+
+    @Override
+    public Optional<ImageFileMetadata> findImageVariantMetadataByProductId(Long productId, ImageVariantSize size) {
+        return findMetadata(FIND_VARIANT_METADATA_BY_PRODUCT_ID_SQL, size, productId, size.name());
+    }
+
+    @Override
+    public void copyImageVariantData(Long variantId, long offset, long length, OutputStream outputStream)
+            throws IOException {
+        copyData(FIND_VARIANT_DATA_BY_ID_SQL, variantId, offset, length, outputStream);
+    }
+
+    private Optional<ImageFileMetadata> findMetadata(String sql, ImageVariantSize variant, Object... args) {
+        return jdbcTemplate.query(sql, rs -> {
+            if (!rs.next()) {
+                return Optional.empty();
+            }
+            long size = rs.getLong("data_size");
+            if (rs.wasNull()) {
+                Blob data = rs.getBlob("data");
+                try {
+                    size = data.length();
+                } finally {
+                    data.free();
+                }
+            }
+            return Optional.of(new ImageFileMetadata(
+                    rs.getLong("id"),
+                    rs.getString("filename"),
+                    rs.getString("content_type"),
+                    size,
+                    variant
+            ));
+        }, args);
+    }
+
+    private void copyData(String sql, Long id, long offset, long length, OutputStream outputStream) throws IOException {
+        try {
+            jdbcTemplate.query(sql, rs -> {
+                if (!rs.next()) {
+                    throw new EmptyResultDataAccessException(1);
+                }
+                Blob data = rs.getBlob("data");
+                try (InputStream inputStream = data.getBinaryStream(offset + 1, length)) {
+                    copy(inputStream, outputStream, length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    data.free();
+                }
+                return null;
+            }, id);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void copy(InputStream inputStream, OutputStream outputStream, long length) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                break;
+            }
+            outputStream.write(buffer, 0, read);
+            remaining -= read;
+        }
+        outputStream.flush();
+    }
+}
@@ -0,0 +1,56 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.model.ImageFile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageFileRepository extends JpaRepository<ImageFile, Long>, ImageDataRepository {
+
+    @Query("select i.id from ImageFile i where i.sha256 = :sha256")
+    Optional<Long> findIdBySha256(@Param("sha256") String sha256);
+
+    @Modifying
+    @Query("update ImageFile i set i.referenceCount = i.referenceCount + 1 where i.sha256 = :sha256")
+    int incrementReferenceCount(@Param("sha256") String sha256);
+
+    /**
+     * Inserts the row of a new image unless one with the same SHA-256 exists. An insert racing a concurrent one
+     * waits for it and returns nothing once it commits, instead of failing on {@code uk_images_sha256}.
+     */
+    @Query(value = """
+            insert into images (filename, content_type, data_size, sha256, reference_count, variants_processed)
+            values (:filename, :contentType, :dataSize, :sha256, 1, false)
+            on conflict (sha256) do nothing
+            returning id""", nativeQuery = true)
+    Optional<Long> insertIfAbsent(@Param("filename") String filename,
+                                  @Param("contentType") String contentType,
+                                  @Param("dataSize") Long dataSize,
+                                  @Param("sha256") String sha256);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update ImageFile i set i.referenceCount = i.referenceCount - 1 where i.id = :id")
+    int decrementReferenceCount(@Param("id") Long id);
+
+    /**
+     * Claims variant generation of the image. Concurrent callers wait on the row lock and only one of them
+     * gets 1; a rolled back generation gives the claim back.
+     */
+    @Modifying
+    @Query("update ImageFile i set i.variantsProcessed = true where i.id = :id and i.variantsProcessed = false")
+    int markVariantsProcessed(@Param("id") Long id);
+
+    @Query("select i.id from ImageFile i where i.variantsProcessed = false and i.id > :afterId order by i.id")
+    List<Long> findIdsWithoutProcessedVariants(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from ImageFile i where i.id = :id and i.referenceCount <= 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
@@ -0,0 +1,11 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.model.ImageVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImageVariantRepository extends JpaRepository<ImageVariant, Long> {
+
+    boolean existsByImageId(Long imageId);
+}
@@ -0,0 +1,12 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.dto.ProductChanges;
+
+/**
+ * Reads the products changed since a sync version, including tombstones of deleted products.
+ * A {@code null} version returns the whole catalog and no tombstones.
+ */
+public interface ProductChangesRepository {
+
+    ProductChanges findChangesSince(Long since);
+}
@@ -0,0 +1,73 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.dto.ProductChanges;
+import com.filip.managementapp.dto.ProductSummaryDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Triggers in {@code schema-postgresql.sql} stamp every written product and every tombstone with the id of
+ * the writing transaction. Ids are handed out when a transaction starts rather than when it commits, so a
+ * plain maximum could skip a transaction that commits late. The returned version is instead the oldest
+ * transaction still running: everything below it is settled, and anything at or above it is returned again.
+ */
+@Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+class ProductChangesRepositoryImpl implements ProductChangesRepository {
+
+    private static final String CURRENT_VERSION_SQL = "select txid_snapshot_xmin(txid_current_snapshot())";
+
+    private static final String PRODUCT_SUMMARIES_SQL = """
+            select id, name, short_description, description, quantity, price, is_available, product_image_id, version
+            from products
+            """;
+
+    private static final String ALL_PRODUCT_SUMMARIES_SQL = PRODUCT_SUMMARIES_SQL + "order by id";
+
+    private static final String CHANGED_PRODUCT_SUMMARIES_SQL = PRODUCT_SUMMARIES_SQL + """
+            where change_version >= ?
+            order by id
+            """;
+
+    private static final String DELETED_PRODUCT_IDS_SQL = """
+            select product_id
+            from product_tombstones
+            where change_version >= ?
+            order by product_id
+            """;
+
+    private static final RowMapper<ProductSummaryDto> PRODUCT_SUMMARY_MAPPER = (resultSet, rowNumber) ->
+            new ProductSummaryDto(
+                    resultSet.getLong("id"),
+                    resultSet.getString("name"),
+                    resultSet.getString("short_description"),
+                    resultSet.getString("description"),
+                    resultSet.getLong("quantity"),
+                    resultSet.getDouble("price"),
+                    resultSet.getBoolean("is_available"),
+                    resultSet.getObject("product_image_id", Long.class),
+                    resultSet.getLong("version")
+            );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProductChangesRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public ProductChanges findChangesSince(Long since) {
+        // the first query takes the snapshot that the rows below are read from
+        Long version = jdbcTemplate.queryForObject(CURRENT_VERSION_SQL, Long.class);
+        if (since == null) {
+            List<ProductSummaryDto> products = jdbcTemplate.query(ALL_PRODUCT_SUMMARIES_SQL, PRODUCT_SUMMARY_MAPPER);
+            return new ProductChanges(products, List.of(), version);
+        }
+        List<ProductSummaryDto> products = jdbcTemplate.query(CHANGED_PRODUCT_SUMMARIES_SQL, PRODUCT_SUMMARY_MAPPER, since);
+        List<Long> deletedIds = jdbcTemplate.queryForList(DELETED_PRODUCT_IDS_SQL, Long.class, since);
+        return new ProductChanges(products, deletedIds, version);
+    }
+}
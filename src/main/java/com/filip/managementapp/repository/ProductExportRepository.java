@@ -0,0 +1,14 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.dto.ProductSummaryDto;
+
+import java.util.function.Consumer;
+
+/**
+ * Reads the whole catalog through a server-side cursor, so only one fetch of rows is held at a time.
+ * The consumer runs while the cursor is open and should not block for long.
+ */
+public interface ProductExportRepository {
+
+    void streamProductSummaries(Consumer<ProductSummaryDto> consumer);
+}
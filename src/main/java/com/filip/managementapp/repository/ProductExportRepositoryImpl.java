@@ -0,0 +1,53 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.dto.ProductSummaryDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+
+// PostgreSQL only honours the fetch size with auto-commit off, hence the transaction
+@Transactional(readOnly = true)
+class ProductExportRepositoryImpl implements ProductExportRepository {
+
+    private static final String FIND_ALL_PRODUCT_SUMMARIES_SQL = """
+            select id, name, short_description, description, quantity, price, is_available, product_image_id, version
+            from products
+            order by id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    ProductExportRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                @Value("${application.products.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public void streamProductSummaries(Consumer<ProductSummaryDto> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    FIND_ALL_PRODUCT_SUMMARIES_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY
+            );
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, resultSet -> {
+            consumer.accept(new ProductSummaryDto(
+                    resultSet.getLong("id"),
+                    resultSet.getString("name"),
+                    resultSet.getString("short_description"),
+                    resultSet.getString("description"),
+                    resultSet.getLong("quantity"),
+                    resultSet.getDouble("price"),
+                    resultSet.getBoolean("is_available"),
+                    resultSet.getObject("product_image_id", Long.class),
+                    resultSet.getLong("version")
+            ));
+        });
+    }
+}
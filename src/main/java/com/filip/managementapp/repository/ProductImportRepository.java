@@ -0,0 +1,18 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.dto.ProductRequest;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Plain JDBC writes for bulk imports. Entities with IDENTITY ids are inserted one statement at a time by
+ * Hibernate, while these inserts go to the driver as a single batch.
+ */
+public interface ProductImportRepository {
+
+    Set<String> findExistingNames(Collection<String> names);
+
+    void insertProducts(List<ProductRequest> products);
+}
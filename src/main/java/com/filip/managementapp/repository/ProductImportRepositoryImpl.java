@@ -0,0 +1,43 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.dto.ProductRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+@Transactional
+@RequiredArgsConstructor
+class ProductImportRepositoryImpl implements ProductImportRepository {
+
+    private static final String FIND_EXISTING_NAMES_SQL = "select name from products where name in (:names)";
+
+    private static final String INSERT_PRODUCT_SQL = """
+            insert into products (name, short_description, description, quantity, price, is_available)
+            values (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<String> findExistingNames(Collection<String> names) {
+        if (names.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(FIND_EXISTING_NAMES_SQL, Map.of("names", names), String.class));
+    }
+
+    @Override
+    public void insertProducts(List<ProductRequest> products) {
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_PRODUCT_SQL, products, products.size(), (ps, product) -> {
+            ps.setString(1, product.name());
+            ps.setString(2, product.shortDescription());
+            ps.setString(3, product.description());
+            ps.setLong(4, product.quantity());
+            ps.setDouble(5, product.price());
+            ps.setBoolean(6, product.isAvailable());
+        });
+    }
+}
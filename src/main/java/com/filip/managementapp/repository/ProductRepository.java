@@ -1,11 +1,68 @@
 package com.filip.managementapp.repository;
 
+import com.filip.managementapp.dto.ProductSummaryDto;
 import com.filip.managementapp.model.Product;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductSummaryRepository,
+        ProductImportRepository, ProductExportRepository, ProductChangesRepository {
 
     boolean existsByName(String name);
+
+    @Query("""
+            select new com.filip.managementapp.dto.ProductSummaryDto(
+                p.id, p.name, p.shortDescription, p.description, p.quantity, p.price, p.isAvailable, i.id, p.version
+            )
+            from Product p left join p.productImage i
+            """)
+    List<ProductSummaryDto> findAllProductSummaries(Sort sort);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Product p
+            set p.quantity = p.quantity - :quantity,
+                p.isAvailable = case when p.quantity = :quantity then false else p.isAvailable end,
+                p.version = p.version + 1
+            where p.id = :id and p.quantity >= :quantity
+            """)
+    int reserveStock(@Param("id") Long id, @Param("quantity") long quantity);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Product p
+            set p.quantity = p.quantity + :quantity,
+                p.isAvailable = case when p.quantity = 0 then true else p.isAvailable end,
+                p.version = p.version + 1
+            where p.id = :id
+            """)
+    int releaseStock(@Param("id") Long id, @Param("quantity") long quantity);
+
+    /**
+     * Writes the net number of items reserved in memory; a negative delta puts items back. The quantity stops
+     * at zero when it was lowered below the items reserved since the last write.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Product p
+            set p.quantity = case when p.quantity <= :delta then 0 else (p.quantity - :delta) end,
+                p.isAvailable = case
+                    when p.quantity <= :delta then false
+                    when p.quantity = 0 then true
+                    else p.isAvailable
+                end,
+                p.version = p.version + 1
+            where p.id = :id
+            """)
+    int applyStockDelta(@Param("id") Long id, @Param("delta") long delta);
 }
@@ -0,0 +1,70 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.dto.ProductFilter;
+import com.filip.managementapp.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Locale;
+
+public final class ProductSpecifications {
+
+    private static final char LIKE_ESCAPE_CHAR = '\\';
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> matching(ProductFilter filter) {
+        if (filter == null) {
+            return Specification.where(null);
+        }
+        return Specification
+                .where(priceAtLeast(filter.minPrice()))
+                .and(priceAtMost(filter.maxPrice()))
+                .and(isAvailable(filter.isAvailable()))
+                .and(quantityAtLeast(filter.minQuantity()))
+                .and(nameContains(filter.name()));
+    }
+
+    public static Specification<Product> priceAtLeast(Double minPrice) {
+        return minPrice == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Product> priceAtMost(Double maxPrice) {
+        return maxPrice == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    public static Specification<Product> isAvailable(Boolean isAvailable) {
+        return isAvailable == null ? null : (root, query, cb) -> cb.equal(root.get("isAvailable"), isAvailable);
+    }
+
+    public static Specification<Product> quantityAtLeast(Long minQuantity) {
+        return minQuantity == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("quantity"), minQuantity);
+    }
+
+    /**
+     * Case-insensitive substring match on {@code lower(name)}, which is what the trigram index
+     * from {@code schema-postgresql.sql} is built on.
+     */
+    public static Specification<Product> nameContains(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        String pattern = "%" + escapeLikePattern(name.trim().toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern, LIKE_ESCAPE_CHAR);
+    }
+
+    /**
+     * Seek predicate within one availability of the {@code (isAvailable DESC, id ASC)} catalog ordering, see
+     * {@link ProductSummaryRepository#findProductSummariesAfter}.
+     */
+    public static Specification<Product> idAfter(Long id) {
+        return id == null ? null : (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+
+    private static String escapeLikePattern(String value) {
+        return value
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
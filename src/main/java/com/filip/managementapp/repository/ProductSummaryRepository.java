@@ -0,0 +1,22 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.dto.ProductCursor;
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.model.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ProductSummaryRepository {
+
+    List<ProductSummaryDto> findProductSummaries(Specification<Product> specification, Sort sort);
+
+    List<ProductSummaryDto> findProductSummaries(Specification<Product> specification, Sort sort, int limit);
+
+    /**
+     * Reads up to {@code limit} products in {@code (isAvailable DESC, id ASC)} order that come after the cursor,
+     * or from the start when it is {@code null}.
+     */
+    List<ProductSummaryDto> findProductSummariesAfter(Specification<Product> specification, ProductCursor cursor, int limit);
+}
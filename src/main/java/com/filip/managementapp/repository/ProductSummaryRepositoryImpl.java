@@ -0,0 +1,93 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.dto.ProductCursor;
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.model.ImageFile;
+import com.filip.managementapp.model.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+@Transactional(readOnly = true)
+class ProductSummaryRepositoryImpl implements ProductSummaryRepository {
+
+    private static final List<Boolean> AVAILABILITY_ORDER = List.of(true, false);
+    private static final Sort ID_ORDER = Sort.by("id");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductSummaryDto> findProductSummaries(Specification<Product> specification, Sort sort) {
+        return createQuery(specification, sort).getResultList();
+    }
+
+    @Override
+    public List<ProductSummaryDto> findProductSummaries(Specification<Product> specification, Sort sort, int limit) {
+        return createQuery(specification, sort).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Reads each availability with its own {@code is_available = ? and id > ? order by id} query, a single range
+     * of {@code idx_products_is_available_id}. An OR across both availabilities would make the database walk
+     * every available product before the cursor instead. Unavailable products are only read once the available
+     * ones run out.
+     */
+    @Override
+    public List<ProductSummaryDto> findProductSummariesAfter(Specification<Product> specification,
+                                                             ProductCursor cursor,
+                                                             int limit) {
+        List<ProductSummaryDto> products = new ArrayList<>(limit);
+        for (Boolean isAvailable : AVAILABILITY_ORDER) {
+            if (cursor != null && isAvailable && !cursor.isAvailable()) {
+                continue;
+            }
+            Long afterId = cursor != null && isAvailable.equals(cursor.isAvailable()) ? cursor.id() : null;
+            Specification<Product> seek = Specification.where(specification)
+                    .and(ProductSpecifications.isAvailable(isAvailable))
+                    .and(ProductSpecifications.idAfter(afterId));
+            products.addAll(findProductSummaries(seek, ID_ORDER, limit - products.size()));
+            if (products.size() >= limit) {
+                break;
+            }
+        }
+        return products;
+    }
+
+    private TypedQuery<ProductSummaryDto> createQuery(Specification<Product> specification, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummaryDto> query = cb.createQuery(ProductSummaryDto.class);
+        Root<Product> product = query.from(Product.class);
+        Join<Product, ImageFile> image = product.join("productImage", JoinType.LEFT);
+
+        query.select(cb.construct(
+                ProductSummaryDto.class,
+                product.get("id"),
+                product.get("name"),
+                product.get("shortDescription"),
+                product.get("description"),
+                product.get("quantity"),
+                product.get("price"),
+                product.get("isAvailable"),
+                image.get("id"),
+                product.get("version")
+        ));
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(product, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(toOrders(sort, product, cb));
+        return entityManager.createQuery(query);
+    }
+}
@@ -0,0 +1,27 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.model.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    @Query("select distinct r.productId from StockReservation r")
+    List<Long> findProductIds();
+
+    /**
+     * Deletes the logged reservations of a product and returns their net quantity. Deleting and summing in one
+     * statement means a row committed meanwhile is either both counted and deleted or left for the next call.
+     * Has to run in the transaction that writes the quantity.
+     */
+    @Query(value = """
+            with drained as (delete from stock_reservations where product_id = :productId returning quantity)
+            select cast(coalesce(sum(quantity), 0) as bigint) from drained
+            """, nativeQuery = true)
+    long drain(@Param("productId") Long productId);
+}
@@ -0,0 +1,223 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.event.ProductChangeType;
+import com.filip.managementapp.event.ProductChangedEvent;
+import com.filip.managementapp.exception.ResourceNotFoundException;
+import com.filip.managementapp.mapper.ProductMapper;
+import com.filip.managementapp.model.Product;
+import com.filip.managementapp.model.StockReservation;
+import com.filip.managementapp.repository.ProductRepository;
+import com.filip.managementapp.repository.StockReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the stock of flash-sale products in {@link StripedStockCounter}s, so reservations of a hot product
+ * do not queue on its row lock. Every reservation is appended to {@code stock_reservations} before it is
+ * acknowledged, an insert that never waits on the product row. The log is written to {@code products.quantity}
+ * on a short interval with one update per product and on shutdown.
+ * <p>
+ * On startup the log left by the previous run is written first, so reservations acknowledged before a crash
+ * are not sold again, and then the configured products are loaded. Committed product changes are reconciled
+ * with the counters by their version.
+ * <p>
+ * Every write bumps the product version like any other change, so an {@code If-Match} update of a hot product
+ * usually fails with 412. The response carries the current ETag to retry with.
+ */
+@Slf4j
+@Component
+public class HotStockCounters {
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final ProductMapper productMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final List<Long> configuredProductIds;
+    private final int stripeCount = Runtime.getRuntime().availableProcessors();
+
+    private final ConcurrentMap<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+
+    public HotStockCounters(ProductRepository productRepository,
+                            StockReservationRepository stockReservationRepository,
+                            ProductMapper productMapper,
+                            TransactionTemplate transactionTemplate,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${application.products.hot-stock.product-ids:}") List<Long> configuredProductIds) {
+        this.productRepository = productRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.productMapper = productMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.configuredProductIds = configuredProductIds;
+    }
+
+    public StripedStockCounter find(Long productId) {
+        return counters.get(productId);
+    }
+
+    /**
+     * Reserves the items in memory and logs the reservation. The items go back if the log can not be written.
+     */
+    public boolean tryReserve(Long productId, StripedStockCounter counter, long quantity) {
+        if (!counter.tryReserve(quantity)) {
+            return false;
+        }
+        try {
+            stockReservationRepository.save(new StockReservation(null, productId, quantity));
+        } catch (RuntimeException e) {
+            counter.release(quantity);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Logs the release before the items become available again, so they are never offered twice.
+     */
+    public void release(Long productId, StripedStockCounter counter, long quantity) {
+        stockReservationRepository.save(new StockReservation(null, productId, -quantity));
+        counter.release(quantity);
+    }
+
+    public void enable(Long productId) {
+        StripedStockCounter counter = counters.computeIfAbsent(productId, id -> {
+            Product product = loadProduct(id);
+            return new StripedStockCounter(stripeCount, product.getQuantity(), product.getVersion());
+        });
+        // a change committed while the counter was being registered is not delivered to it
+        Product product = loadProduct(productId);
+        counter.flushLock().lock();
+        try {
+            counter.reconcile(product.getQuantity(), product.getVersion());
+        } finally {
+            counter.flushLock().unlock();
+        }
+    }
+
+    public void disable(Long productId) {
+        StripedStockCounter counter = counters.remove(productId);
+        if (counter != null) {
+            flush(productId, counter);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        flush();
+        for (Long productId : configuredProductIds) {
+            try {
+                enable(productId);
+            } catch (ResourceNotFoundException e) {
+                log.warn("Configured hot stock product {} does not exist", productId);
+            }
+        }
+    }
+
+    /**
+     * Writes the log of every hot product, and of products whose counter is gone, e.g. reservations logged by
+     * a previous run or while a counter was being disabled.
+     */
+    @Scheduled(fixedDelayString = "${application.products.hot-stock.flush-interval:500}")
+    public void flush() {
+        counters.forEach(this::flush);
+        for (Long productId : stockReservationRepository.findProductIds()) {
+            if (!counters.containsKey(productId)) {
+                write(productId, null);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        StripedStockCounter counter = counters.get(event.productId());
+        if (counter == null) {
+            return;
+        }
+        if (event.type() == ProductChangeType.DELETED) {
+            counters.remove(event.productId(), counter);
+            return;
+        }
+        counter.flushLock().lock();
+        try {
+            counter.reconcile(event.product().quantity(), event.product().version());
+        } finally {
+            counter.flushLock().unlock();
+        }
+    }
+
+    private void flush(Long productId, StripedStockCounter counter) {
+        counter.flushLock().lock();
+        try {
+            if (counter.pending() != 0) {
+                write(productId, counter);
+            }
+        } finally {
+            counter.flushLock().unlock();
+        }
+    }
+
+    /**
+     * Drains the log of the product into its row. A failed write leaves the log in place for the next flush.
+     */
+    private void write(Long productId, StripedStockCounter counter) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeLog(productId, counter));
+        } catch (RuntimeException e) {
+            log.warn("Could not write stock of product {}", productId, e);
+        }
+    }
+
+    private void writeLog(Long productId, StripedStockCounter counter) {
+        long delta = stockReservationRepository.drain(productId);
+        if (delta == 0) {
+            return;
+        }
+        if (productRepository.applyStockDelta(productId, delta) == 0) {
+            // the product is gone, and its log with it
+            if (counter != null) {
+                counters.remove(productId, counter);
+            }
+            return;
+        }
+        Product product = loadProduct(productId);
+        if (counter != null) {
+            // recorded before the published change reaches onProductChanged, so it is not applied twice
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.recordFlush(delta, product.getQuantity(), product.getVersion());
+                    counter.settle(delta);
+                }
+            });
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.updated(productMapper.productToProductSummaryDto(product)));
+    }
+
+    private Product loadProduct(Long productId) {
+        return productRepository
+                .findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        String.format(ProductService.PRODUCT_BY_ID_NOT_FOUND_STRING, productId)
+                ));
+    }
+}
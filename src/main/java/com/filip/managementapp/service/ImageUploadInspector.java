@@ -0,0 +1,115 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.exception.ApiBadRequestException;
+import com.filip.managementapp.model.ImageFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Reads an upload once through a fixed buffer to learn its size and SHA-256 before anything is stored.
+ * The size cap is checked while reading, so an oversized upload is rejected without being read to the end.
+ * The content type comes from the first bytes when they match a known image format. Anything else is stored
+ * as {@code application/octet-stream}, because the declared type is up to the client and the image is served
+ * inline from the API origin.
+ */
+@Component
+public class ImageUploadInspector {
+
+    public static final String IMAGE_TOO_LARGE_STRING = "Image must not be larger than %d bytes";
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int SNIFF_LENGTH = 12;
+
+    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF87_SIGNATURE = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GIF89_SIGNATURE = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RIFF_SIGNATURE = "RIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEBP_SIGNATURE = "WEBP".getBytes(StandardCharsets.US_ASCII);
+
+    private final long maxBytes;
+
+    public ImageUploadInspector(@Value("${application.images.max-upload-bytes:5242880}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a new, unsaved image row describing the upload. Its data is left empty for the store to stream.
+     */
+    public ImageFile inspect(MultipartFile upload) {
+        if (upload.getSize() > maxBytes) {
+            throw new ApiBadRequestException(String.format(IMAGE_TOO_LARGE_STRING, maxBytes));
+        }
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] head = new byte[SNIFF_LENGTH];
+        int headLength = 0;
+        long size = 0;
+        try (InputStream inputStream = upload.getInputStream()) {
+            for (int read = inputStream.read(buffer); read != -1; read = inputStream.read(buffer)) {
+                size += read;
+                if (size > maxBytes) {
+                    throw new ApiBadRequestException(String.format(IMAGE_TOO_LARGE_STRING, maxBytes));
+                }
+                if (headLength < SNIFF_LENGTH) {
+                    int copied = Math.min(read, SNIFF_LENGTH - headLength);
+                    System.arraycopy(buffer, 0, head, headLength, copied);
+                    headLength += copied;
+                }
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        String contentType = sniffContentType(Arrays.copyOf(head, headLength));
+        if (contentType == null) {
+            contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        }
+        ImageFile image = new ImageFile(null, upload.getOriginalFilename(), contentType, null);
+        image.setSha256(HexFormat.of().formatHex(digest.digest()));
+        image.setDataSize(size);
+        image.setReferenceCount(1L);
+        return image;
+    }
+
+    static String sniffContentType(byte[] head) {
+        if (startsWith(head, JPEG_SIGNATURE, 0)) {
+            return MediaType.IMAGE_JPEG_VALUE;
+        }
+        if (startsWith(head, PNG_SIGNATURE, 0)) {
+            return MediaType.IMAGE_PNG_VALUE;
+        }
+        if (startsWith(head, GIF87_SIGNATURE, 0) || startsWith(head, GIF89_SIGNATURE, 0)) {
+            return MediaType.IMAGE_GIF_VALUE;
+        }
+        if (startsWith(head, RIFF_SIGNATURE, 0) && startsWith(head, WEBP_SIGNATURE, 8)) {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, byte[] signature, int offset) {
+        return head.length >= offset + signature.length
+                && Arrays.equals(head, offset, offset + signature.length, signature, 0, signature.length);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
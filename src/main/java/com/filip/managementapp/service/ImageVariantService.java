@@ -0,0 +1,208 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.event.ProductChangedEvent;
+import com.filip.managementapp.model.ImageFile;
+import com.filip.managementapp.model.ImageVariant;
+import com.filip.managementapp.model.ImageVariantSize;
+import com.filip.managementapp.repository.ImageFileRepository;
+import com.filip.managementapp.repository.ImageVariantRepository;
+import com.filip.managementapp.storage.ImageStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Generates the downscaled {@link ImageVariant}s of a product image once the product change has committed.
+ * Runs on the async executor, so uploads do not wait for decoding and scaling.
+ * <p>
+ * Only changes that point a product at a different image are considered, and every image is processed once:
+ * the claim is recorded in the same transaction as the variants, so it also covers images that yield none.
+ * Images stored before the claim existed are picked up on startup.
+ * <p>
+ * The dimensions are read from the image header before decoding. Images above the pixel budget are decoded
+ * with subsampling, so a small file declaring huge dimensions can not exhaust the heap.
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    private static final int BACKFILL_BATCH_SIZE = 100;
+
+    private final ImageFileRepository imageFileRepository;
+    private final ImageVariantRepository imageVariantRepository;
+    private final ImageStore imageStore;
+    private final TransactionTemplate transactionTemplate;
+    private final long maxDecodedPixels;
+
+    public ImageVariantService(ImageFileRepository imageFileRepository,
+                               ImageVariantRepository imageVariantRepository,
+                               ImageStore imageStore,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${application.images.variants.max-decoded-pixels:16777216}") long maxDecodedPixels) {
+        this.imageFileRepository = imageFileRepository;
+        this.imageVariantRepository = imageVariantRepository;
+        this.imageStore = imageStore;
+        this.transactionTemplate = transactionTemplate;
+        this.maxDecodedPixels = maxDecodedPixels;
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!event.imageChanged() || event.product().imageId() == null) {
+            return;
+        }
+        process(event.product().imageId());
+    }
+
+    /**
+     * Processes the images that were never claimed, each in its own transaction, so one failing image does not
+     * hold back the others.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void processUnclaimedImages() {
+        long afterId = 0;
+        List<Long> imageIds;
+        do {
+            imageIds = imageFileRepository.findIdsWithoutProcessedVariants(afterId, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            for (Long imageId : imageIds) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> process(imageId));
+                } catch (RuntimeException e) {
+                    log.warn("Could not generate variants of image {}", imageId, e);
+                }
+                afterId = imageId;
+            }
+        } while (imageIds.size() == BACKFILL_BATCH_SIZE);
+    }
+
+    private void process(Long imageId) {
+        // images that got their variants before the claim was recorded are claimed once more
+        if (imageFileRepository.markVariantsProcessed(imageId) == 0 || imageVariantRepository.existsByImageId(imageId)) {
+            return;
+        }
+        imageFileRepository.findById(imageId).ifPresent(this::generateVariants);
+    }
+
+    private void generateVariants(ImageFile imageFile) {
+        BufferedImage image;
+        try {
+            image = decode(imageStore.read(imageFile));
+        } catch (IOException e) {
+            log.warn("Could not decode image {}", imageFile.getId(), e);
+            return;
+        }
+        if (image == null) {
+            log.debug("No ImageIO reader for image {} of type {}", imageFile.getId(), imageFile.getContentType());
+            return;
+        }
+
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+        String format = hasAlpha ? "png" : "jpeg";
+        String contentType = hasAlpha ? MediaType.IMAGE_PNG_VALUE : MediaType.IMAGE_JPEG_VALUE;
+        int imageType = hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        // largest variant first, so every smaller one is scaled down from the previous result
+        ImageVariantSize[] sizes = ImageVariantSize.values();
+        Arrays.sort(sizes, Comparator.comparingInt(ImageVariantSize::getMaxDimension).reversed());
+
+        BufferedImage source = image;
+        for (ImageVariantSize size : sizes) {
+            int longerSide = Math.max(source.getWidth(), source.getHeight());
+            if (longerSide <= size.getMaxDimension()) {
+                continue;
+            }
+            double ratio = (double) size.getMaxDimension() / longerSide;
+            int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+            source = scale(source, width, height, imageType);
+
+            try {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                ImageIO.write(source, format, outputStream);
+                imageVariantRepository.save(new ImageVariant(
+                        null, imageFile, size, contentType, width, height, outputStream.toByteArray()
+                ));
+            } catch (IOException e) {
+                log.warn("Could not encode {} variant of image {}", size, imageFile.getId(), e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Decodes only every n-th pixel of every n-th row when the image holds more than the pixel budget.
+     * The variants are far smaller than the budget, so they come out the same size.
+     */
+    private BufferedImage decode(byte[] data) throws IOException {
+        try (ImageInputStream inputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(inputStream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(inputStream, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (pixels > maxDecodedPixels) {
+                    int step = (int) Math.ceil(Math.sqrt((double) pixels / maxDecodedPixels));
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Halves the image until it reaches the target size. A single bilinear step over a large
+     * factor skips most source pixels and produces visible aliasing.
+     */
+    private static BufferedImage scale(BufferedImage source, int width, int height, int imageType) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, imageType);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+}
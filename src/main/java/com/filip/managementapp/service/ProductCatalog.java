@@ -0,0 +1,117 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.event.ProductChangeType;
+import com.filip.managementapp.event.ProductChangedEvent;
+
+import java.util.*;
+
+/**
+ * Immutable snapshot of the product catalog, ordered by availability and id.
+ * Changes produce a new snapshot, so readers never need to lock.
+ * <p>
+ * The products are kept in one sorted array. Lookups by id binary-search it, and a change copies the array
+ * once and moves only the changed product, so a write never sorts the catalog again.
+ */
+public final class ProductCatalog {
+
+    private static final Comparator<ProductSummaryDto> CATALOG_ORDER = Comparator
+            .comparing(ProductCatalog::isAvailable)
+            .reversed()
+            .thenComparing(ProductSummaryDto::id);
+
+    private final ProductSummaryDto[] products;
+    private final List<ProductSummaryDto> productList;
+    private final ProductFacetCounts facetCounts;
+
+    private ProductCatalog(ProductSummaryDto[] products, ProductFacetCounts facetCounts) {
+        this.products = products;
+        this.productList = Collections.unmodifiableList(Arrays.asList(products));
+        this.facetCounts = facetCounts;
+    }
+
+    public static ProductCatalog of(Collection<ProductSummaryDto> products) {
+        ProductSummaryDto[] sorted = products.toArray(ProductSummaryDto[]::new);
+        Arrays.sort(sorted, CATALOG_ORDER);
+        return new ProductCatalog(sorted, ProductFacetCounts.of(products));
+    }
+
+    public List<ProductSummaryDto> products() {
+        return productList;
+    }
+
+    public Optional<ProductSummaryDto> findById(Long productId) {
+        int index = indexOf(productId);
+        return index < 0 ? Optional.empty() : Optional.of(products[index]);
+    }
+
+    public int size() {
+        return products.length;
+    }
+
+    public ProductFacetCounts facetCounts() {
+        return facetCounts;
+    }
+
+    /**
+     * Returns the catalog with the change applied, or this catalog when the change is not newer than the
+     * stored product. Changes of one product commit on different threads and may arrive out of order.
+     */
+    public ProductCatalog apply(ProductChangedEvent event) {
+        int index = indexOf(event.productId());
+        ProductSummaryDto previous = index < 0 ? null : products[index];
+        ProductSummaryDto product = event.product();
+        ProductSummaryDto[] changed;
+        if (event.type() == ProductChangeType.DELETED) {
+            if (previous == null) {
+                return this;
+            }
+            changed = remove(products, index);
+        } else if (isStale(previous, product)) {
+            return this;
+        } else if (previous != null && isAvailable(previous) == isAvailable(product)) {
+            changed = products.clone();
+            changed[index] = product;
+        } else {
+            changed = insert(previous == null ? products : remove(products, index), product);
+        }
+        return new ProductCatalog(changed, facetCounts.replace(previous, product));
+    }
+
+    /**
+     * The position is only known together with the availability, so both halves of the catalog are searched.
+     */
+    private int indexOf(Long productId) {
+        int index = Arrays.binarySearch(products, probe(productId, true), CATALOG_ORDER);
+        return index >= 0 ? index : Arrays.binarySearch(products, probe(productId, false), CATALOG_ORDER);
+    }
+
+    private static ProductSummaryDto[] remove(ProductSummaryDto[] products, int index) {
+        ProductSummaryDto[] result = new ProductSummaryDto[products.length - 1];
+        System.arraycopy(products, 0, result, 0, index);
+        System.arraycopy(products, index + 1, result, index, products.length - index - 1);
+        return result;
+    }
+
+    private static ProductSummaryDto[] insert(ProductSummaryDto[] products, ProductSummaryDto product) {
+        int index = -Arrays.binarySearch(products, product, CATALOG_ORDER) - 1;
+        ProductSummaryDto[] result = new ProductSummaryDto[products.length + 1];
+        System.arraycopy(products, 0, result, 0, index);
+        result[index] = product;
+        System.arraycopy(products, index, result, index + 1, products.length - index);
+        return result;
+    }
+
+    private static boolean isStale(ProductSummaryDto current, ProductSummaryDto product) {
+        return current != null && current.version() != null && product.version() != null
+                && product.version() <= current.version();
+    }
+
+    private static boolean isAvailable(ProductSummaryDto product) {
+        return Boolean.TRUE.equals(product.isAvailable());
+    }
+
+    private static ProductSummaryDto probe(Long productId, boolean isAvailable) {
+        return new ProductSummaryDto(productId, null, null, null, null, null, isAvailable, null, null);
+    }
+}
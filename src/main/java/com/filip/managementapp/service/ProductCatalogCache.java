@@ -0,0 +1,82 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.event.ProductChangeType;
+import com.filip.managementapp.event.ProductChangedEvent;
+import com.filip.managementapp.event.ProductsImportedEvent;
+import com.filip.managementapp.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the current {@link ProductCatalog}. The snapshot is loaded lazily on the first read and patched
+ * once a product change commits. Loading and patching share one lock, so a load that races a commit
+ * cannot install a snapshot that misses it, while readers stay lock-free.
+ * <p>
+ * The version is bumped after every committed change and is meant to be read before the data it
+ * describes, so a response may carry an older version than its content but never a newer one.
+ * It is seeded from the clock so that validators issued before a restart do not match afterwards.
+ * <p>
+ * Deleted ids are remembered for the life of the process, so a change committed before the delete but
+ * delivered after it can not bring the product back. Ids are never reused, so the set only grows by deletes.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductCatalogCache {
+
+    private final ProductRepository productRepository;
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    private final Set<Long> deletedProductIds = new HashSet<>();
+
+    private volatile ProductCatalog catalog;
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public ProductCatalog getCatalog() {
+        ProductCatalog current = catalog;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (catalog == null) {
+                catalog = ProductCatalog.of(
+                        productRepository.findAllProductSummaries(Sort.by(Sort.Direction.DESC, "isAvailable"))
+                );
+            }
+            return catalog;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangeType.DELETED) {
+            deletedProductIds.add(event.productId());
+        } else if (deletedProductIds.contains(event.productId())) {
+            return;
+        }
+        if (catalog != null) {
+            ProductCatalog changed = catalog.apply(event);
+            if (changed == catalog) {
+                return;
+            }
+            catalog = changed;
+        }
+        version.incrementAndGet();
+    }
+
+    @EventListener(ProductsImportedEvent.class)
+    public synchronized void evict() {
+        catalog = null;
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,125 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.event.ProductChangedEvent;
+import com.filip.managementapp.event.ProductsImportedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes committed product changes to subscribed clients as server-sent events. Each change takes the next
+ * number of a sequence seeded from the clock, which is sent as the event id. A client reconnecting with
+ * {@code Last-Event-ID} is sent the changes it missed from a short replay buffer, or a {@code reset} event
+ * telling it to reload the catalog once they are no longer buffered.
+ * <p>
+ * Events are written by a single thread in sequence order, so a slow client never holds up the request
+ * that made the change.
+ */
+@Component
+public class ProductChangeFeed {
+
+    public static final int REPLAY_SIZE = 256;
+    public static final String RESET_EVENT = "reset";
+    public static final String IMPORTED_EVENT = "imported";
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Deque<Change> recent = new ArrayDeque<>(REPLAY_SIZE);
+    private long sequence = System.currentTimeMillis();
+
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter();
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> emitters.remove(emitter));
+
+        synchronized (this) {
+            List<Change> missed = lastEventId == null ? List.of() : findMissed(lastEventId);
+            Change reset = new Change(sequence, RESET_EVENT, Map.of());
+            // queued under the lock, so changes numbered after this point are dispatched after the replay
+            dispatcher.execute(() -> {
+                boolean open = missed == null
+                        ? send(emitter, reset)
+                        : missed.stream().allMatch(change -> send(emitter, change));
+                if (open) {
+                    emitters.add(emitter);
+                }
+            });
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        publish(event.type().name().toLowerCase(Locale.ROOT), event);
+    }
+
+    @EventListener(ProductsImportedEvent.class)
+    public void onProductsImported(ProductsImportedEvent event) {
+        publish(IMPORTED_EVENT, event);
+    }
+
+    @PreDestroy
+    public void close() {
+        dispatcher.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+    }
+
+    private synchronized void publish(String name, Object data) {
+        Change change = new Change(++sequence, name, data);
+        if (recent.size() == REPLAY_SIZE) {
+            recent.removeFirst();
+        }
+        recent.addLast(change);
+        dispatcher.execute(() -> emitters.forEach(emitter -> send(emitter, change)));
+    }
+
+    /**
+     * Returns the buffered changes after {@code lastEventId}, or {@code null} when some of them are gone
+     * or the id was not issued by this sequence.
+     */
+    private List<Change> findMissed(long lastEventId) {
+        long oldest = recent.isEmpty() ? sequence + 1 : recent.getFirst().id();
+        if (lastEventId < oldest - 1 || lastEventId > sequence) {
+            return null;
+        }
+        return recent.stream()
+                .filter(change -> change.id() > lastEventId)
+                .toList();
+    }
+
+    private boolean send(SseEmitter emitter, Change change) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(change.id()))
+                    .name(change.name())
+                    .data(change.data(), MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            emitters.remove(emitter);
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private record Change(long id, String name, Object data) {
+    }
+}
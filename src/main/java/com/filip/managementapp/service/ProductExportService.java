@@ -0,0 +1,112 @@
+package com.filip.managementapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.exception.ApiBadRequestException;
+import com.filip.managementapp.repository.ProductRepository;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the catalog, without image data, as CSV or NDJSON while it is read from the database.
+ * The CSV header uses the column names the import expects, so an export can be imported again.
+ */
+@Service
+public class ProductExportService {
+
+    public static final String INVALID_EXPORT_FORMAT_STRING = "Invalid export format '%s', expected one of %s";
+
+    private static final String CSV_HEADER = "id,name,shortDescription,description,quantity,price,isAvailable,imageId,version";
+
+    public enum Format {
+        CSV(ProductImportService.TEXT_CSV),
+        NDJSON(ProductImportService.APPLICATION_NDJSON);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String fileExtension() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Format fromParameter(String value) {
+            return Arrays.stream(values())
+                    .filter(format -> format.fileExtension().equalsIgnoreCase(value))
+                    .findFirst()
+                    .orElseThrow(() -> new ApiBadRequestException(String.format(
+                            INVALID_EXPORT_FORMAT_STRING,
+                            value,
+                            Arrays.stream(values()).map(Format::fileExtension).collect(Collectors.joining(", "))
+                    )));
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final ObjectWriter rowWriter;
+
+    public ProductExportService(ProductRepository productRepository, ObjectMapper objectMapper) {
+        this.productRepository = productRepository;
+        this.rowWriter = objectMapper.writerFor(ProductSummaryDto.class);
+    }
+
+    public void exportProducts(Format format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        try {
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            productRepository.streamProductSummaries(product -> {
+                try {
+                    writer.write(format == Format.CSV ? toCsv(product) : toJson(product));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private String toJson(ProductSummaryDto product) throws JsonProcessingException {
+        return rowWriter.writeValueAsString(product);
+    }
+
+    private static String toCsv(ProductSummaryDto product) {
+        return String.join(",",
+                String.valueOf(product.id()),
+                csvValue(product.name()),
+                csvValue(product.shortDescription()),
+                csvValue(product.description()),
+                String.valueOf(product.quantity()),
+                String.valueOf(product.price()),
+                String.valueOf(product.isAvailable()),
+                product.imageId() == null ? "" : String.valueOf(product.imageId()),
+                String.valueOf(product.version())
+        );
+    }
+
+    private static String csvValue(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,109 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.dto.ProductFacets;
+import com.filip.managementapp.dto.ProductSummaryDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable facet counts of the catalog. Replacing one product adjusts only the buckets it leaves and enters,
+ * so keeping the counts current costs a constant amount of work per change.
+ * <p>
+ * Price buckets are half-open, {@code [from, to)}, and the last one has no upper bound.
+ */
+public final class ProductFacetCounts {
+
+    static final double[] PRICE_BOUNDS = {25, 50, 100, 250, 500, 1000};
+
+    private static final ProductFacetCounts EMPTY = new ProductFacetCounts(new long[PRICE_BOUNDS.length + 1], 0, 0, 0, 0);
+
+    private final long[] priceCounts;
+    private final long available;
+    private final long unavailable;
+    private final long inStock;
+    private final long outOfStock;
+
+    private ProductFacetCounts(long[] priceCounts, long available, long unavailable, long inStock, long outOfStock) {
+        this.priceCounts = priceCounts;
+        this.available = available;
+        this.unavailable = unavailable;
+        this.inStock = inStock;
+        this.outOfStock = outOfStock;
+    }
+
+    public static ProductFacetCounts of(Collection<ProductSummaryDto> products) {
+        Counter counter = new Counter(EMPTY);
+        products.forEach(product -> counter.add(product, 1));
+        return counter.build();
+    }
+
+    public ProductFacetCounts replace(ProductSummaryDto removed, ProductSummaryDto added) {
+        Counter counter = new Counter(this);
+        if (removed != null) {
+            counter.add(removed, -1);
+        }
+        if (added != null) {
+            counter.add(added, 1);
+        }
+        return counter.build();
+    }
+
+    public ProductFacets toFacets() {
+        List<ProductFacets.PriceBucket> buckets = new ArrayList<>(priceCounts.length);
+        for (int i = 0; i < priceCounts.length; i++) {
+            buckets.add(new ProductFacets.PriceBucket(
+                    i == 0 ? 0 : PRICE_BOUNDS[i - 1],
+                    i < PRICE_BOUNDS.length ? PRICE_BOUNDS[i] : null,
+                    priceCounts[i]
+            ));
+        }
+        return new ProductFacets(List.copyOf(buckets), available, unavailable, inStock, outOfStock);
+    }
+
+    private static int priceBucket(double price) {
+        int bucket = 0;
+        while (bucket < PRICE_BOUNDS.length && price >= PRICE_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static final class Counter {
+        private final long[] priceCounts;
+        private long available;
+        private long unavailable;
+        private long inStock;
+        private long outOfStock;
+
+        private Counter(ProductFacetCounts counts) {
+            this.priceCounts = Arrays.copyOf(counts.priceCounts, counts.priceCounts.length);
+            this.available = counts.available;
+            this.unavailable = counts.unavailable;
+            this.inStock = counts.inStock;
+            this.outOfStock = counts.outOfStock;
+        }
+
+        private void add(ProductSummaryDto product, int delta) {
+            if (product.price() != null) {
+                priceCounts[priceBucket(product.price())] += delta;
+            }
+            if (Boolean.TRUE.equals(product.isAvailable())) {
+                available += delta;
+            } else {
+                unavailable += delta;
+            }
+            if (product.quantity() != null && product.quantity() > 0) {
+                inStock += delta;
+            } else {
+                outOfStock += delta;
+            }
+        }
+
+        private ProductFacetCounts build() {
+            return new ProductFacetCounts(priceCounts, available, unavailable, inStock, outOfStock);
+        }
+    }
+}
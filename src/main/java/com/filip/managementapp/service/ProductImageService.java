@@ -0,0 +1,116 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.dto.ImageFileMetadata;
+import com.filip.managementapp.exception.ApiConflictException;
+import com.filip.managementapp.exception.ResourceNotFoundException;
+import com.filip.managementapp.model.ImageFile;
+import com.filip.managementapp.model.ImageVariantSize;
+import com.filip.managementapp.repository.ImageFileRepository;
+import com.filip.managementapp.storage.ImageDataCache;
+import com.filip.managementapp.storage.ImageStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class ProductImageService {
+
+    public static final String PRODUCT_IMAGE_NOT_FOUND_STRING = "Image of product with id %d not found";
+    public static final String CONCURRENT_IMAGE_UPLOAD_STRING = "The same image is being changed concurrently, try again";
+
+    // another attempt is only needed when an image with the same bytes is inserted and deleted in between
+    private static final int MAX_ACQUIRE_ATTEMPTS = 3;
+
+    private final ImageFileRepository imageFileRepository;
+    private final ImageStore imageStore;
+    private final ImageDataCache imageDataCache;
+    private final ImageUploadInspector imageUploadInspector;
+
+    @Transactional(readOnly = true)
+    public ImageFileMetadata findProductImageMetadata(Long productId) {
+        return imageFileRepository
+                .findImageMetadataByProductId(productId)
+                .orElseThrow(() -> new ResourceNotFoundException(String.format(PRODUCT_IMAGE_NOT_FOUND_STRING, productId)));
+    }
+
+    /**
+     * Falls back to the original while the variant is still being generated, or when the original
+     * is already smaller than the requested size and no variant is ever stored for it.
+     */
+    @Transactional(readOnly = true)
+    public ImageFileMetadata findProductImageMetadata(Long productId, ImageVariantSize size) {
+        if (size == null) {
+            return findProductImageMetadata(productId);
+        }
+        return imageFileRepository
+                .findImageVariantMetadataByProductId(productId, size)
+                .orElseGet(() -> findProductImageMetadata(productId));
+    }
+
+    public void writeImageData(ImageFileMetadata image, long offset, long length, OutputStream outputStream)
+            throws IOException {
+        if (length <= 0) {
+            return;
+        }
+        imageDataCache.write(image, offset, length, outputStream, (sourceOffset, sourceLength, target) -> {
+            if (image.isVariant()) {
+                imageFileRepository.copyImageVariantData(image.id(), sourceOffset, sourceLength, target);
+            } else {
+                imageStore.copy(image.id(), sourceOffset, sourceLength, target);
+            }
+        });
+    }
+
+    /**
+     * Returns the stored image with the same bytes as {@code upload}, taking one more reference on it,
+     * or stores {@code upload} as a new image. The increment runs first so that it waits on, and then
+     * misses, an image that a concurrent {@link #releaseImage(Long)} is about to delete. A concurrent first
+     * upload of the same bytes makes the insert skip once it commits, and the next increment finds its row.
+     * <p>
+     * The upload is read twice, once to hash it and once to store it, and never held in memory as a whole.
+     * The container keeps larger parts in a temporary file, so reading it again is cheap.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public ImageFile acquireImage(MultipartFile upload) {
+        ImageFile image = imageUploadInspector.inspect(upload);
+        for (int attempt = 0; attempt < MAX_ACQUIRE_ATTEMPTS; attempt++) {
+            if (imageFileRepository.incrementReferenceCount(image.getSha256()) > 0) {
+                return imageFileRepository
+                        .findIdBySha256(image.getSha256())
+                        .map(imageFileRepository::getReferenceById)
+                        .orElseThrow();
+            }
+            Optional<Long> imageId = imageFileRepository.insertIfAbsent(
+                    image.getFilename(), image.getContentType(), image.getDataSize(), image.getSha256()
+            );
+            if (imageId.isPresent()) {
+                image.setId(imageId.get());
+                try (InputStream data = upload.getInputStream()) {
+                    imageStore.store(image, data);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return imageFileRepository.getReferenceById(image.getId());
+            }
+        }
+        throw new ApiConflictException(CONCURRENT_IMAGE_UPLOAD_STRING);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releaseImage(Long imageId) {
+        imageFileRepository.decrementReferenceCount(imageId);
+        if (imageFileRepository.deleteIfUnreferenced(imageId) > 0) {
+            imageStore.delete(imageId);
+            imageDataCache.evict(imageId);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.filip.managementapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.filip.managementapp.dto.ProductRequest;
+import com.filip.managementapp.exception.ApiBadRequestException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Reads import rows one at a time, so the body is never held in memory. Rows that can not be parsed are
+ * returned with an error instead of a request, and reading carries on with the next one.
+ */
+abstract class ProductImportReader implements Closeable {
+
+    static final String MISSING_CSV_COLUMNS_STRING = "CSV header is missing columns %s";
+    static final String INVALID_CSV_VALUE_STRING = "Invalid value '%s' for column %s";
+    static final String INVALID_JSON_ROW_STRING = "Malformed JSON: %s";
+
+    record Row(long number, ProductRequest request, String error) {
+    }
+
+    protected final BufferedReader reader;
+
+    protected ProductImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    static ProductImportReader csv(BufferedReader reader) throws IOException {
+        return new Csv(reader);
+    }
+
+    static ProductImportReader ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+        return new Ndjson(reader, objectMapper);
+    }
+
+    /**
+     * @return the next row numbered by the line it starts on, or {@code null} at the end of the input
+     */
+    abstract Row next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class Ndjson extends ProductImportReader {
+
+        private final ObjectMapper objectMapper;
+        private long lineNumber;
+
+        private Ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+            super(reader);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Row next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+            } while (line != null && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+            try {
+                return new Row(lineNumber, objectMapper.readValue(line, ProductRequest.class), null);
+            } catch (JsonProcessingException e) {
+                return new Row(lineNumber, null, String.format(INVALID_JSON_ROW_STRING, e.getOriginalMessage()));
+            }
+        }
+    }
+
+    private static final class Csv extends ProductImportReader {
+
+        private static final List<String> COLUMNS =
+                List.of("name", "shortDescription", "description", "quantity", "price", "isAvailable");
+
+        private final int[] columnIndexes = new int[COLUMNS.size()];
+        private long lineNumber = 1;
+
+        private Csv(BufferedReader reader) throws IOException {
+            super(reader);
+            List<String> header = Objects.requireNonNullElse(readRecord(), List.of());
+            List<String> missing = new ArrayList<>();
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                columnIndexes[i] = indexOfIgnoreCase(header, COLUMNS.get(i));
+                if (columnIndexes[i] < 0) {
+                    missing.add(COLUMNS.get(i));
+                }
+            }
+            if (!missing.isEmpty()) {
+                throw new ApiBadRequestException(String.format(MISSING_CSV_COLUMNS_STRING, missing));
+            }
+        }
+
+        @Override
+        Row next() throws IOException {
+            List<String> values;
+            long rowNumber;
+            do {
+                rowNumber = lineNumber;
+                values = readRecord();
+            } while (values != null && values.size() == 1 && values.get(0).isEmpty());
+            if (values == null) {
+                return null;
+            }
+
+            String[] fields = new String[COLUMNS.size()];
+            for (int i = 0; i < fields.length; i++) {
+                String value = columnIndexes[i] < values.size() ? values.get(columnIndexes[i]).strip() : "";
+                fields[i] = value.isEmpty() ? null : value;
+            }
+            try {
+                return new Row(rowNumber, new ProductRequest(
+                        null,
+                        fields[0],
+                        fields[1],
+                        fields[2],
+                        fields[3] == null ? null : parse(fields[3], 3, Long::valueOf),
+                        fields[4] == null ? null : parse(fields[4], 4, Double::valueOf),
+                        fields[5] == null ? null : parse(fields[5], 5, Csv::parseBoolean),
+                        null
+                ), null);
+            } catch (IllegalArgumentException e) {
+                return new Row(rowNumber, null, e.getMessage());
+            }
+        }
+
+        /**
+         * Reads one RFC 4180 record. Quoted values may contain separators, doubled quotes and line breaks.
+         */
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c < 0) {
+                return null;
+            }
+            List<String> values = new ArrayList<>();
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            for (; c >= 0; c = reader.read()) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            value.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            lineNumber++;
+                        }
+                        value.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(value.toString());
+                    value.setLength(0);
+                } else if (c == '\n') {
+                    lineNumber++;
+                    break;
+                } else if (c != '\r') {
+                    value.append((char) c);
+                }
+            }
+            values.add(value.toString());
+            return values;
+        }
+
+        private static <T> T parse(String value, int column, Function<String, T> parser) {
+            try {
+                return parser.apply(value);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format(INVALID_CSV_VALUE_STRING, value, COLUMNS.get(column)));
+            }
+        }
+
+        private static Boolean parseBoolean(String value) {
+            if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+                return Boolean.valueOf(value);
+            }
+            throw new IllegalArgumentException(value);
+        }
+
+        private static int indexOfIgnoreCase(List<String> header, String column) {
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).strip().equalsIgnoreCase(column)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
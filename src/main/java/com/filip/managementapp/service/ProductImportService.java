@@ -0,0 +1,157 @@
+package com.filip.managementapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.filip.managementapp.dto.ProductImportReport;
+import com.filip.managementapp.dto.ProductRequest;
+import com.filip.managementapp.event.ProductsImportedEvent;
+import com.filip.managementapp.exception.ApiBadRequestException;
+import com.filip.managementapp.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Imports products from a CSV or NDJSON stream. Rows are validated like a {@link ProductRequest} and
+ * stored in chunks, each in its own transaction, so a failing chunk only loses its own rows and a large
+ * feed never holds one long transaction. Problems are collected per row rather than aborting the import.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    public static final String UNSUPPORTED_IMPORT_TYPE_STRING = "Unsupported import content type %s";
+    public static final String DUPLICATE_IMPORT_NAME_STRING = "Product name '%s' appears more than once in the import";
+    public static final String CHUNK_REJECTED_STRING = "Row could not be stored: %s";
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ProductRepository productRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public ProductImportService(ProductRepository productRepository,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                TransactionTemplate transactionTemplate,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${application.products.import.batch-size:500}") int batchSize) {
+        this.productRepository = productRepository;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    public ProductImportReport importProducts(InputStream inputStream, MediaType contentType) throws IOException {
+        Charset charset = Objects.requireNonNullElse(contentType.getCharset(), StandardCharsets.UTF_8);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, charset));
+        Import state = new Import();
+        try (ProductImportReader rows = openReader(reader, contentType)) {
+            List<ProductImportReader.Row> chunk = new ArrayList<>(batchSize);
+            for (ProductImportReader.Row row = rows.next(); row != null; row = rows.next()) {
+                String error = row.error() != null ? row.error() : validate(row.request(), state.names);
+                if (error != null) {
+                    state.reject(row.number(), error);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == batchSize) {
+                    store(chunk, state);
+                    chunk.clear();
+                }
+            }
+            store(chunk, state);
+        } finally {
+            if (state.imported > 0) {
+                eventPublisher.publishEvent(new ProductsImportedEvent(state.imported));
+            }
+        }
+        log.info("Imported {} products, {} rows failed", state.imported, state.failed);
+        // name conflicts surface only when a chunk is stored, after later rows were already validated
+        state.errors.sort(Comparator.comparingLong(ProductImportReport.RowError::row));
+        return new ProductImportReport(state.imported, state.failed, List.copyOf(state.errors));
+    }
+
+    private ProductImportReader openReader(BufferedReader reader, MediaType contentType) throws IOException {
+        if (TEXT_CSV.isCompatibleWith(contentType)) {
+            return ProductImportReader.csv(reader);
+        }
+        if (APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+            return ProductImportReader.ndjson(reader, objectMapper);
+        }
+        throw new ApiBadRequestException(String.format(UNSUPPORTED_IMPORT_TYPE_STRING, contentType));
+    }
+
+    private String validate(ProductRequest request, Set<String> names) {
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (!names.add(request.name())) {
+            return String.format(DUPLICATE_IMPORT_NAME_STRING, request.name());
+        }
+        return null;
+    }
+
+    private void store(List<ProductImportReader.Row> chunk, Import state) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            List<ProductImportReader.Row> rejected = transactionTemplate.execute(status -> {
+                Set<String> existingNames = productRepository.findExistingNames(
+                        chunk.stream().map(row -> row.request().name()).toList()
+                );
+                Map<Boolean, List<ProductImportReader.Row>> rows = chunk.stream()
+                        .collect(Collectors.partitioningBy(row -> existingNames.contains(row.request().name())));
+                productRepository.insertProducts(rows.get(false).stream().map(ProductImportReader.Row::request).toList());
+                return rows.get(true);
+            });
+            rejected.forEach(row -> state.reject(row.number(), String.format(
+                    ProductService.PRODUCT_WITH_GIVEN_NAME_EXISTS_STRING, row.request().name()
+            )));
+            state.imported += chunk.size() - rejected.size();
+        } catch (DataAccessException e) {
+            String message = String.format(CHUNK_REJECTED_STRING, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            chunk.forEach(row -> state.reject(row.number(), message));
+        }
+    }
+
+    private static final class Import {
+        private final Set<String> names = new HashSet<>();
+        private final List<ProductImportReport.RowError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        private void reject(long row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ProductImportReport.RowError(row, message));
+            }
+        }
+    }
+}
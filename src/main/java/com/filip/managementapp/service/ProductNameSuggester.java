@@ -0,0 +1,167 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.dto.ProductSuggestion;
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.event.ProductChangeType;
+import com.filip.managementapp.event.ProductChangedEvent;
+import com.filip.managementapp.event.ProductsImportedEvent;
+import com.filip.managementapp.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Case-insensitive prefix lookup of product names over a trie. A lookup walks the prefix and then the subtree
+ * in alphabetical order until it has enough names, so its cost depends on the prefix and the limit only,
+ * never on the size of the catalog.
+ * <p>
+ * A rebuild reads the names without holding the lock. Changes delivered meanwhile are applied right away and
+ * also queued, then replayed over the freshly read names, so the older read can not undo them.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductNameSuggester {
+
+    private static final class Node {
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private final TreeMap<Long, String> products = new TreeMap<>();
+
+        private boolean isEmpty() {
+            return children.isEmpty() && products.isEmpty();
+        }
+    }
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> namesById = new HashMap<>();
+    private Node root = new Node();
+    private List<ProductChangedEvent> changesDuringRebuild;
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<ProductSummaryDto> products;
+        try {
+            products = productRepository.findAllProductSummaries(Sort.unsorted());
+        } catch (RuntimeException e) {
+            // the current names already include every change, so they stay until the next rebuild
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            root = new Node();
+            namesById.clear();
+            products.forEach(product -> add(product.id(), product.name()));
+            changesDuringRebuild.forEach(this::apply);
+            changesDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(event);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        List<ProductSuggestion> suggestions = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (char c : normalize(prefix).toCharArray()) {
+                node = node.children.get(c);
+                if (node == null) {
+                    return suggestions;
+                }
+            }
+            collect(node, suggestions, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return suggestions;
+    }
+
+    private void collect(Node node, List<ProductSuggestion> suggestions, int limit) {
+        for (Map.Entry<Long, String> product : node.products.entrySet()) {
+            if (suggestions.size() == limit) {
+                return;
+            }
+            suggestions.add(new ProductSuggestion(product.getKey(), product.getValue()));
+        }
+        for (Node child : node.children.values()) {
+            if (suggestions.size() == limit) {
+                return;
+            }
+            collect(child, suggestions, limit);
+        }
+    }
+
+    private void apply(ProductChangedEvent event) {
+        remove(event.productId());
+        if (event.type() != ProductChangeType.DELETED) {
+            add(event.productId(), event.product().name());
+        }
+    }
+
+    private void add(Long productId, String name) {
+        Node node = root;
+        for (char c : normalize(name).toCharArray()) {
+            node = node.children.computeIfAbsent(c, key -> new Node());
+        }
+        node.products.put(productId, name);
+        namesById.put(productId, name);
+    }
+
+    private void remove(Long productId) {
+        String name = namesById.remove(productId);
+        if (name != null) {
+            remove(root, normalize(name), 0, productId);
+        }
+    }
+
+    private boolean remove(Node node, String key, int depth, Long productId) {
+        if (depth == key.length()) {
+            node.products.remove(productId);
+        } else {
+            Node child = node.children.get(key.charAt(depth));
+            if (child != null && remove(child, key, depth + 1, productId)) {
+                node.children.remove(key.charAt(depth));
+            }
+        }
+        return node.isEmpty();
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
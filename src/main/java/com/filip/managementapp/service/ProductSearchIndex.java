@@ -0,0 +1,134 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.event.ProductChangeType;
+import com.filip.managementapp.event.ProductChangedEvent;
+import com.filip.managementapp.event.ProductsImportedEvent;
+import com.filip.managementapp.repository.ProductRepository;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory Lucene index over product names and descriptions. It is rebuilt from the database once the
+ * application is ready and then kept current from committed {@link ProductChangedEvent}s. Searches only
+ * return ids, which callers resolve against the catalog snapshot.
+ */
+@Component
+public class ProductSearchIndex implements DisposableBean {
+
+    private static final String ID_FIELD = "id";
+    private static final Map<String, Float> FIELD_WEIGHTS = Map.of(
+            "name", 4f,
+            "shortDescription", 2f,
+            "description", 1f
+    );
+
+    private final ProductRepository productRepository;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final IndexWriter indexWriter;
+    private final SearcherManager searcherManager;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+        try {
+            this.indexWriter = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+            this.searcherManager = new SearcherManager(indexWriter, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public synchronized void rebuild() {
+        try {
+            indexWriter.deleteAll();
+            for (ProductSummaryDto product : productRepository.findAllProductSummaries(Sort.unsorted())) {
+                indexWriter.addDocument(toDocument(product));
+            }
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        Term id = new Term(ID_FIELD, event.productId().toString());
+        try {
+            if (event.type() == ProductChangeType.DELETED) {
+                indexWriter.deleteDocuments(id);
+            } else {
+                indexWriter.updateDocument(id, toDocument(event.product()));
+            }
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns ids of products matching every term of {@code query}, best match first. The query uses
+     * Lucene's simple syntax, so quotes, {@code -} and a trailing {@code *} work and nothing else can fail.
+     */
+    public List<Long> search(String query, int limit) {
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, FIELD_WEIGHTS);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query parsedQuery = parser.parse(query);
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                List<Long> ids = new ArrayList<>();
+                for (ScoreDoc scoreDoc : searcher.search(parsedQuery, limit).scoreDocs) {
+                    ids.add(Long.valueOf(searcher.doc(scoreDoc.doc).get(ID_FIELD)));
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        searcherManager.close();
+        indexWriter.close();
+    }
+
+    private Document toDocument(ProductSummaryDto product) {
+        Document document = new Document();
+        document.add(new StringField(ID_FIELD, product.id().toString(), Field.Store.YES));
+        document.add(new TextField("name", product.name(), Field.Store.NO));
+        document.add(new TextField("shortDescription", product.shortDescription(), Field.Store.NO));
+        document.add(new TextField("description", product.description(), Field.Store.NO));
+        return document;
+    }
+}
@@ -1,17 +1,37 @@
 package com.filip.managementapp.service;
 
-import com.filip.managementapp.dto.ProductDto;
+import com.filip.managementapp.dto.ProductBatch;
+import com.filip.managementapp.dto.ProductChanges;
+import com.filip.managementapp.dto.ProductCursor;
+import com.filip.managementapp.dto.ProductCursorPage;
+import com.filip.managementapp.dto.ProductFacets;
+import com.filip.managementapp.dto.ProductFilter;
+import com.filip.managementapp.dto.ProductPatchRequest;
 import com.filip.managementapp.dto.ProductRequest;
+import com.filip.managementapp.dto.ProductSuggestion;
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.event.ProductChangedEvent;
+import com.filip.managementapp.exception.ApiBadRequestException;
+import com.filip.managementapp.exception.ApiConflictException;
+import com.filip.managementapp.exception.ApiPreconditionFailedException;
 import com.filip.managementapp.exception.ResourceAlreadyExistsException;
 import com.filip.managementapp.exception.ResourceNotFoundException;
 import com.filip.managementapp.mapper.ProductMapper;
+import com.filip.managementapp.model.ImageFile;
 import com.filip.managementapp.model.Product;
 import com.filip.managementapp.repository.ProductRepository;
+import com.filip.managementapp.repository.ProductSpecifications;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 
@@ -21,44 +41,159 @@ public class ProductService {
 
     public static final String PRODUCT_BY_ID_NOT_FOUND_STRING = "Product with id %d not found";
     public static final String PRODUCT_WITH_GIVEN_NAME_EXISTS_STRING = "Product with name '%s' already exists";
+    public static final String INVALID_PAGE_SIZE_STRING = "Page size must be between 1 and %d";
+    public static final String BLANK_SEARCH_QUERY_STRING = "Search query must not be blank";
+    public static final String INVALID_SUGGESTION_LIMIT_STRING = "Suggestion limit must be between 1 and %d";
+    public static final String INSUFFICIENT_STOCK_STRING = "Product with id %d has fewer than %d items in stock";
+    public static final String PRODUCT_VERSION_MISMATCH_STRING = "Product with id %d is no longer at version %d";
+    public static final String INVALID_SYNC_VERSION_STRING = "Sync version must not be negative";
+    public static final String INVALID_BATCH_SIZE_STRING = "Between 1 and %d product ids can be requested at once";
+    public static final String EMPTY_BATCH_ID_STRING = "Product ids must not be empty";
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 100;
+    public static final int MAX_SUGGESTIONS = 20;
+    public static final Sort CATALOG_SORT = Sort.by(Sort.Direction.DESC, "isAvailable").and(Sort.by("id"));
+    private static final String UNIQUE_VIOLATION_SQL_STATE = "23505";
 
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final ProductImageService productImageService;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductNameSuggester productNameSuggester;
+    private final HotStockCounters hotStockCounters;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public long getCatalogVersion() {
+        return productCatalogCache.getVersion();
+    }
+
+    public List<ProductSummaryDto> findAllProducts() {
+        return productCatalogCache.getCatalog().products();
+    }
+
+    public ProductFacets findProductFacets() {
+        return productCatalogCache.getCatalog().facetCounts().toFacets();
+    }
+
+    public List<ProductSummaryDto> findAllProducts(ProductFilter filter) {
+        if (filter == null || filter.isEmpty()) {
+            return findAllProducts();
+        }
+        return productRepository.findProductSummaries(ProductSpecifications.matching(filter), CATALOG_SORT);
+    }
 
     @Transactional(readOnly = true)
-    public List<ProductDto> findAllProducts() {
-        return productRepository
-                .findAll(Sort.by(Sort.Direction.DESC, "isAvailable"))
+    public ProductCursorPage findProductsPage(String cursor, int size, ProductFilter filter) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ApiBadRequestException(String.format(INVALID_PAGE_SIZE_STRING, MAX_PAGE_SIZE));
+        }
+        ProductCursor after = cursor == null || cursor.isBlank() ? null : ProductCursor.decode(cursor);
+
+        // one extra row tells whether another page exists without running a count query
+        List<ProductSummaryDto> products = productRepository.findProductSummariesAfter(
+                ProductSpecifications.matching(filter), after, size + 1
+        );
+        if (products.size() <= size) {
+            return new ProductCursorPage(products, null);
+        }
+        List<ProductSummaryDto> content = products.subList(0, size);
+        return new ProductCursorPage(List.copyOf(content), ProductCursor.of(content.get(size - 1)).encode());
+    }
+
+    /**
+     * Resolves the products from the catalog snapshot in the requested order, without touching the database.
+     * Repeated ids are returned once, and ids of products that do not exist are reported as missing.
+     */
+    public ProductBatch findProductsByIds(List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty() || productIds.size() > MAX_BATCH_SIZE) {
+            throw new ApiBadRequestException(String.format(INVALID_BATCH_SIZE_STRING, MAX_BATCH_SIZE));
+        }
+        if (productIds.stream().anyMatch(Objects::isNull)) {
+            throw new ApiBadRequestException(EMPTY_BATCH_ID_STRING);
+        }
+        ProductCatalog catalog = productCatalogCache.getCatalog();
+        List<ProductSummaryDto> products = new ArrayList<>(productIds.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long productId : new LinkedHashSet<>(productIds)) {
+            catalog.findById(productId).ifPresentOrElse(products::add, () -> missingIds.add(productId));
+        }
+        return new ProductBatch(products, missingIds);
+    }
+
+    public ProductChanges findProductChanges(Long since) {
+        if (since != null && since < 0) {
+            throw new ApiBadRequestException(INVALID_SYNC_VERSION_STRING);
+        }
+        return productRepository.findChangesSince(since);
+    }
+
+    public List<ProductSummaryDto> searchProducts(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new ApiBadRequestException(BLANK_SEARCH_QUERY_STRING);
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ApiBadRequestException(String.format(INVALID_PAGE_SIZE_STRING, MAX_PAGE_SIZE));
+        }
+        ProductCatalog catalog = productCatalogCache.getCatalog();
+        return productSearchIndex.search(query, limit)
                 .stream()
-                .map(productMapper::productToProductDto)
+                .flatMap(productId -> catalog.findById(productId).stream())
                 .toList();
     }
 
-    @Transactional(readOnly = true)
-    public ProductDto findProductById(Long productId) {
-        Product product = productRepository
+    public List<ProductSuggestion> suggestProducts(String prefix, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new ApiBadRequestException(String.format(INVALID_SUGGESTION_LIMIT_STRING, MAX_SUGGESTIONS));
+        }
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        return productNameSuggester.suggest(prefix, limit);
+    }
+
+    public ProductSummaryDto findProductById(Long productId) {
+        return productCatalogCache
+                .getCatalog()
                 .findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException(String.format(PRODUCT_BY_ID_NOT_FOUND_STRING, productId)));
-        return productMapper.productToProductDto(product);
     }
 
+    /**
+     * Inserts the product without checking its name first. The unique index on {@code products.name} decides,
+     * so two concurrent creates with the same name cannot both succeed. A rejected insert rolls back the image too.
+     * Like every other write it answers with the summary, which points at the image by id and never reads its data.
+     */
     @Transactional
-    public ProductDto saveProduct(ProductRequest productRequest) {
-        if(productRepository.existsByName(productRequest.name())) {
-            throw new ResourceAlreadyExistsException(
-                    String.format(PRODUCT_WITH_GIVEN_NAME_EXISTS_STRING, productRequest.name())
-            );
-        }
+    public ProductSummaryDto saveProduct(ProductRequest productRequest) {
         Product productToSave = productMapper.productRequestToProduct(productRequest);
+        if (productRequest.productImage() != null) {
+            productToSave.setProductImage(productImageService.acquireImage(productRequest.productImage()));
+        }
+        Product savedProduct;
+        try {
+            savedProduct = productRepository.saveAndFlush(productToSave);
+        } catch (DataIntegrityViolationException e) {
+            throw translateNameConflict(e, productRequest.name());
+        }
 
-        return productMapper.productToProductDto(productRepository.save(productToSave));
+        ProductSummaryDto summary = productMapper.productToProductSummaryDto(savedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.created(summary));
+        return summary;
     }
 
+    /**
+     * Replaces the product if it is still at {@code expectedVersion}; {@code null} skips the check.
+     * A concurrent change that commits between the check and the flush still fails the versioned update.
+     * Stock writes of hot products bump the version as well, see {@link HotStockCounters}.
+     */
     @Transactional
-    public ProductDto updateProduct(Long productId, ProductRequest productRequest) {
+    public ProductSummaryDto updateProduct(Long productId, ProductRequest productRequest, Long expectedVersion) {
         Product currentProduct = productRepository
                 .findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException(String.format(PRODUCT_BY_ID_NOT_FOUND_STRING, productId)));
+        checkVersion(currentProduct, expectedVersion);
 
         if(!Objects.equals(currentProduct.getName(), productRequest.name()) &&
                 productRepository.existsByName(productRequest.name())) {
@@ -69,19 +204,185 @@ public class ProductService {
 
         Product productToUpdate = productMapper.productRequestToProduct(productRequest);
         productToUpdate.setId(currentProduct.getId());
-        if (productToUpdate.getProductImage() == null) {
-           productToUpdate.setProductImage(currentProduct.getProductImage());
+        productToUpdate.setVersion(currentProduct.getVersion());
+        ImageFile currentImage = currentProduct.getProductImage();
+        boolean replacesImage = productRequest.productImage() != null;
+        if (replacesImage) {
+            productToUpdate.setProductImage(productImageService.acquireImage(productRequest.productImage()));
+        } else {
+            productToUpdate.setProductImage(currentImage);
         }
 
-        return productMapper.productToProductDto(productRepository.save(productToUpdate));
+        // flushed here so that the returned and published version is the incremented one
+        Product updatedProduct;
+        try {
+            updatedProduct = productRepository.saveAndFlush(productToUpdate);
+        } catch (DataIntegrityViolationException e) {
+            throw translateNameConflict(e, productRequest.name());
+        }
+        if (replacesImage && currentImage != null) {
+            productImageService.releaseImage(currentImage.getId());
+        }
+
+        ProductSummaryDto summary = productMapper.productToProductSummaryDto(updatedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(summary, currentImage == null ? null : currentImage.getId()));
+        return summary;
+    }
+
+    /**
+     * Applies the given fields to the managed product. Only the changed columns are written, and the image
+     * association is left alone.
+     */
+    @Transactional
+    public ProductSummaryDto patchProduct(Long productId, ProductPatchRequest patch, Long expectedVersion) {
+        Product product = productRepository
+                .findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException(String.format(PRODUCT_BY_ID_NOT_FOUND_STRING, productId)));
+        checkVersion(product, expectedVersion);
+        if (patch.name() != null && !patch.name().equals(product.getName())) {
+            if (productRepository.existsByName(patch.name())) {
+                throw new ResourceAlreadyExistsException(String.format(PRODUCT_WITH_GIVEN_NAME_EXISTS_STRING, patch.name()));
+            }
+            product.setName(patch.name());
+        }
+        if (patch.shortDescription() != null) {
+            product.setShortDescription(patch.shortDescription());
+        }
+        if (patch.description() != null) {
+            product.setDescription(patch.description());
+        }
+        if (patch.quantity() != null) {
+            product.setQuantity(patch.quantity());
+        }
+        if (patch.price() != null) {
+            product.setPrice(patch.price());
+        }
+        if (patch.isAvailable() != null) {
+            product.setIsAvailable(patch.isAvailable());
+        }
+        try {
+            productRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw translateNameConflict(e, product.getName());
+        }
+
+        ProductSummaryDto summary = productMapper.productToProductSummaryDto(product);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(summary));
+        return summary;
+    }
+
+    /**
+     * Takes items out of stock with a single conditional update, so concurrent reservations can never
+     * oversell. The product becomes unavailable once its last item is reserved.
+     * <p>
+     * Hot products are reserved in memory instead and only logged, so they never wait on the row lock.
+     * Their stored quantity follows after the next flush.
+     */
+    public ProductSummaryDto reserveStock(Long productId, long quantity) {
+        StripedStockCounter counter = hotStockCounters.find(productId);
+        if (counter != null) {
+            if (!hotStockCounters.tryReserve(productId, counter, quantity)) {
+                throw new ApiConflictException(String.format(INSUFFICIENT_STOCK_STRING, productId, quantity));
+            }
+            return withCountedStock(findProductById(productId), counter);
+        }
+        return transactionTemplate.execute(status -> {
+            if (productRepository.reserveStock(productId, quantity) == 0) {
+                if (!productRepository.existsById(productId)) {
+                    throw new ResourceNotFoundException(String.format(PRODUCT_BY_ID_NOT_FOUND_STRING, productId));
+                }
+                throw new ApiConflictException(String.format(INSUFFICIENT_STOCK_STRING, productId, quantity));
+            }
+            return publishStockChange(productId);
+        });
+    }
+
+    /**
+     * Puts reserved items back. A product that was sold out becomes available again.
+     */
+    public ProductSummaryDto releaseStock(Long productId, long quantity) {
+        StripedStockCounter counter = hotStockCounters.find(productId);
+        if (counter != null) {
+            hotStockCounters.release(productId, counter, quantity);
+            return withCountedStock(findProductById(productId), counter);
+        }
+        return transactionTemplate.execute(status -> {
+            if (productRepository.releaseStock(productId, quantity) == 0) {
+                throw new ResourceNotFoundException(String.format(PRODUCT_BY_ID_NOT_FOUND_STRING, productId));
+            }
+            return publishStockChange(productId);
+        });
+    }
+
+    public void enableHotStock(Long productId) {
+        hotStockCounters.enable(productId);
+    }
+
+    public void disableHotStock(Long productId) {
+        hotStockCounters.disable(productId);
     }
 
     @Transactional
     public void deleteProduct(Long productId) {
-        if(productRepository.existsById(productId)) {
-            productRepository.deleteById(productId);
-        } else {
-            throw new ResourceNotFoundException(String.format(PRODUCT_BY_ID_NOT_FOUND_STRING, productId));
+        Product product = productRepository
+                .findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException(String.format(PRODUCT_BY_ID_NOT_FOUND_STRING, productId)));
+
+        productRepository.delete(product);
+        if (product.getProductImage() != null) {
+            productImageService.releaseImage(product.getProductImage().getId());
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(productId));
+    }
+
+    /**
+     * Re-reads the row in the transaction of the stock update. The update still holds the row lock,
+     * so the published state is exactly the one this caller wrote.
+     */
+    private ProductSummaryDto publishStockChange(Long productId) {
+        Product product = productRepository
+                .findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException(String.format(PRODUCT_BY_ID_NOT_FOUND_STRING, productId)));
+        ProductSummaryDto summary = productMapper.productToProductSummaryDto(product);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(summary));
+        return summary;
+    }
+
+    /**
+     * The failure carries the current version as ETag, so a client that still wants its change can retry with it.
+     */
+    private static void checkVersion(Product product, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new ApiPreconditionFailedException(
+                    String.format(PRODUCT_VERSION_MISMATCH_STRING, product.getId(), expectedVersion),
+                    "\"" + product.getVersion() + "\""
+            );
         }
     }
+
+    /**
+     * Product names are the only unique column besides the key, so a unique violation means the name is taken.
+     */
+    private static RuntimeException translateNameConflict(DataIntegrityViolationException e, String name) {
+        if (e.getCause() instanceof ConstraintViolationException violation
+                && UNIQUE_VIOLATION_SQL_STATE.equals(violation.getSQLState())) {
+            return new ResourceAlreadyExistsException(String.format(PRODUCT_WITH_GIVEN_NAME_EXISTS_STRING, name));
+        }
+        return e;
+    }
+
+    private ProductSummaryDto withCountedStock(ProductSummaryDto product, StripedStockCounter counter) {
+        long available = Math.max(counter.available(), 0);
+        return new ProductSummaryDto(
+                product.id(),
+                product.name(),
+                product.shortDescription(),
+                product.description(),
+                available,
+                product.price(),
+                available > 0 && Boolean.TRUE.equals(product.isAvailable()),
+                product.imageId(),
+                product.version()
+        );
+    }
 }
@@ -0,0 +1,126 @@
+package com.filip.managementapp.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock of one product, spread over independent stripes so that concurrent reservations
+ * rarely touch the same memory. A reservation takes items from a single stripe with a compare-and-set
+ * and only locks the counter when no single stripe holds enough, which happens close to selling out.
+ * <p>
+ * Reserved and released items are added up in {@code pending} until {@link HotStockCounters} writes their
+ * reservation log to the database. The last quantity and version known to be stored are kept alongside, so a
+ * change made elsewhere can be applied as a difference without losing items that are not flushed yet.
+ */
+public final class StripedStockCounter {
+
+    private final AtomicLongArray stripes;
+    private final LongAdder pending = new LongAdder();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private long persistedQuantity;
+    private long persistedVersion;
+
+    StripedStockCounter(int stripeCount, long quantity, long version) {
+        this.stripes = new AtomicLongArray(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.set(i, quantity / stripeCount + (i < quantity % stripeCount ? 1 : 0));
+        }
+        this.persistedQuantity = quantity;
+        this.persistedVersion = version;
+    }
+
+    public boolean tryReserve(long quantity) {
+        int start = ThreadLocalRandom.current().nextInt(stripes.length());
+        for (int i = 0; i < stripes.length(); i++) {
+            int stripe = (start + i) % stripes.length();
+            long current = stripes.get(stripe);
+            while (current >= quantity) {
+                if (stripes.compareAndSet(stripe, current, current - quantity)) {
+                    pending.add(quantity);
+                    return true;
+                }
+                current = stripes.get(stripe);
+            }
+        }
+        return reserveAcrossStripes(quantity);
+    }
+
+    public void release(long quantity) {
+        stripes.addAndGet(ThreadLocalRandom.current().nextInt(stripes.length()), quantity);
+        pending.add(-quantity);
+    }
+
+    public long available() {
+        long available = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            available += stripes.get(i);
+        }
+        return available;
+    }
+
+    /**
+     * Serializes writes of this counter with the stored changes applied to it, without blocking reservations.
+     */
+    ReentrantLock flushLock() {
+        return flushLock;
+    }
+
+    /**
+     * Net number of reserved items that are not written to the product row yet.
+     */
+    long pending() {
+        return pending.sum();
+    }
+
+    /**
+     * Takes {@code delta} items written to the product row out of {@link #pending()}.
+     */
+    void settle(long delta) {
+        pending.add(-delta);
+    }
+
+    /**
+     * Applies a stored change to the in-memory stock. Changes at or below the known version are already
+     * accounted for.
+     */
+    synchronized void reconcile(long quantity, long version) {
+        if (version <= persistedVersion) {
+            return;
+        }
+        stripes.addAndGet(0, quantity - persistedQuantity);
+        persistedQuantity = quantity;
+        persistedVersion = version;
+    }
+
+    /**
+     * Records that {@code delta} items were written and the row now holds {@code quantity}. Anything the write
+     * alone does not explain, such as changes stored in between or the floor at zero, is applied to the stock.
+     */
+    synchronized void recordFlush(long delta, long quantity, long version) {
+        stripes.addAndGet(0, quantity + delta - persistedQuantity);
+        persistedQuantity = quantity;
+        persistedVersion = version;
+    }
+
+    private synchronized boolean reserveAcrossStripes(long quantity) {
+        long taken = 0;
+        for (int i = 0; i < stripes.length() && taken < quantity; i++) {
+            long current = stripes.get(i);
+            long take = Math.min(current, quantity - taken);
+            while (take > 0 && !stripes.compareAndSet(i, current, current - take)) {
+                current = stripes.get(i);
+                take = Math.min(current, quantity - taken);
+            }
+            taken += Math.max(take, 0);
+        }
+        if (taken < quantity) {
+            stripes.addAndGet(0, taken);
+            return false;
+        }
+        pending.add(quantity);
+        return true;
+    }
+}
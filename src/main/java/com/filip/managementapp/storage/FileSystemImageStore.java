@@ -0,0 +1,120 @@
+package com.filip.managementapp.storage;
+
+import com.filip.managementapp.model.ImageFile;
+import com.filip.managementapp.repository.ImageFileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps image data as one file per image under {@code application.images.directory}; the {@code images}
+ * row only holds metadata. Files are named after the image id, never after its content, so a file
+ * scheduled for deletion can not be picked up again by a new upload of the same bytes.
+ * <p>
+ * Rows stored before the switch still carry their large object and are served from the database.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "application.images.store", havingValue = "filesystem")
+public class FileSystemImageStore implements ImageStore {
+
+    private static final int DIRECTORY_COUNT = 1000;
+
+    private final ImageFileRepository imageFileRepository;
+    private final Path directory;
+
+    public FileSystemImageStore(ImageFileRepository imageFileRepository,
+                                @Value("${application.images.directory:images}") String directory) {
+        this.imageFileRepository = imageFileRepository;
+        this.directory = Path.of(directory);
+    }
+
+    @Override
+    public void store(ImageFile image, InputStream data) {
+        Path path = pathOf(image.getId());
+        try {
+            Files.createDirectories(path.getParent());
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                data.transferTo(Channels.newOutputStream(channel));
+                // the row commits right after, so the bytes have to be on disk before it does
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    deleteFile(path);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void copy(Long imageId, long offset, long length, OutputStream outputStream) throws IOException {
+        Path path = pathOf(imageId);
+        if (!Files.exists(path)) {
+            imageFileRepository.copyImageData(imageId, offset, length, outputStream);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long position = offset;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+        outputStream.flush();
+    }
+
+    @Override
+    public byte[] read(ImageFile image) throws IOException {
+        Path path = pathOf(image.getId());
+        return Files.exists(path) ? Files.readAllBytes(path) : image.getData();
+    }
+
+    @Override
+    public void delete(Long imageId) {
+        Path path = pathOf(imageId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteFile(path);
+            }
+        });
+    }
+
+    private Path pathOf(Long imageId) {
+        return directory.resolve("%03d".formatted(imageId % DIRECTORY_COUNT)).resolve(imageId.toString());
+    }
+
+    private void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete image file {}", path, e);
+        }
+    }
+}
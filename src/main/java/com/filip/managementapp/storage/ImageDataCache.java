@@ -0,0 +1,125 @@
+package com.filip.managementapp.storage;
+
+import com.filip.managementapp.dto.ImageFileMetadata;
+import com.filip.managementapp.model.ImageVariantSize;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Size-bounded cache of image bytes held in direct buffers, outside the Java heap. Entries are filled while
+ * a complete image is streamed to a client, so a miss costs no extra read. Eviction is Caffeine's W-TinyLFU
+ * weighted by buffer size; evicted buffers are released once the garbage collector clears them.
+ */
+@Component
+public class ImageDataCache {
+
+    private static final String CACHE_NAME = "productImages";
+
+    @FunctionalInterface
+    public interface ImageDataSource {
+        void copy(long offset, long length, OutputStream outputStream) throws IOException;
+    }
+
+    private record Key(Long id, ImageVariantSize variant) {
+    }
+
+    private final Cache<Key, ByteBuffer> cache;
+    private final long maxEntryBytes;
+
+    @Autowired
+    public ImageDataCache(MeterRegistry meterRegistry,
+                          @Value("${application.images.cache.max-bytes:67108864}") long maxBytes,
+                          @Value("${application.images.cache.max-entry-bytes:4194304}") long maxEntryBytes) {
+        this(meterRegistry, maxBytes, maxEntryBytes, ForkJoinPool.commonPool());
+    }
+
+    ImageDataCache(MeterRegistry meterRegistry, long maxBytes, long maxEntryBytes, Executor executor) {
+        this.maxEntryBytes = Math.min(maxEntryBytes, Integer.MAX_VALUE);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, ByteBuffer data) -> data.capacity())
+                .executor(executor)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("cache.weighted.size", this, ImageDataCache::usedBytes)
+                .tag("cache", CACHE_NAME)
+                .baseUnit("bytes")
+                .description("Bytes of image data held off-heap")
+                .register(meterRegistry);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Writes the requested range from the cache, or from {@code source} on a miss. A miss that reads the
+     * whole image stores it for the next request.
+     */
+    public void write(ImageFileMetadata image, long offset, long length, OutputStream outputStream,
+                      ImageDataSource source) throws IOException {
+        Key key = new Key(image.id(), image.variant());
+        ByteBuffer cached = cache.getIfPresent(key);
+        if (cached != null) {
+            ByteBuffer range = cached.duplicate().position((int) offset).limit((int) (offset + length));
+            WritableByteChannel channel = Channels.newChannel(outputStream);
+            while (range.hasRemaining()) {
+                channel.write(range);
+            }
+            outputStream.flush();
+            return;
+        }
+        if (offset != 0 || length != image.size() || length > maxEntryBytes) {
+            source.copy(offset, length, outputStream);
+            return;
+        }
+
+        ByteBuffer data = ByteBuffer.allocateDirect((int) length);
+        source.copy(0, length, new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                outputStream.write(b);
+                if (data.hasRemaining()) {
+                    data.put((byte) b);
+                }
+            }
+
+            @Override
+            public void write(byte[] bytes, int off, int len) throws IOException {
+                outputStream.write(bytes, off, len);
+                data.put(bytes, off, Math.min(len, data.remaining()));
+            }
+
+            @Override
+            public void flush() throws IOException {
+                outputStream.flush();
+            }
+        });
+        if (!data.hasRemaining()) {
+            cache.put(key, data.flip().asReadOnlyBuffer());
+        }
+    }
+
+    public void evict(Long imageId) {
+        cache.invalidate(new Key(imageId, null));
+    }
+
+    public long usedBytes() {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+}
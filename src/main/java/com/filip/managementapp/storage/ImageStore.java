@@ -0,0 +1,32 @@
+package com.filip.managementapp.storage;
+
+import com.filip.managementapp.model.ImageFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Keeps the bytes of original product images. The {@code images} row is always the source of truth for
+ * metadata and reference counts; implementations only decide where the data lives.
+ * <p>
+ * {@link #store(ImageFile, InputStream)} and {@link #delete(Long)} have to be called inside the transaction that inserts
+ * or deletes the row, so that stores outside the database can follow its outcome.
+ */
+public interface ImageStore {
+
+    /**
+     * Keeps the data of an image whose row has just been inserted, streamed from {@code data} through a bounded
+     * buffer. The row carries the size of the data but never the bytes themselves.
+     */
+    void store(ImageFile image, InputStream data);
+
+    void copy(Long imageId, long offset, long length, OutputStream outputStream) throws IOException;
+
+    byte[] read(ImageFile image) throws IOException;
+
+    /**
+     * Drops the data of an image whose row has just been deleted.
+     */
+    void delete(Long imageId);
+}
@@ -0,0 +1,42 @@
+package com.filip.managementapp.storage;
+
+import com.filip.managementapp.model.ImageFile;
+import com.filip.managementapp.repository.ImageFileRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Keeps image data in the {@code data} large object column of the {@code images} row.
+ * The large object itself is unlinked by the {@code lo_manage} trigger when the row goes away.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.images.store", havingValue = "lob", matchIfMissing = true)
+public class LobImageStore implements ImageStore {
+
+    private final ImageFileRepository imageFileRepository;
+
+    @Override
+    public void store(ImageFile image, InputStream data) {
+        imageFileRepository.writeImageData(image.getId(), data, image.getDataSize());
+    }
+
+    @Override
+    public void copy(Long imageId, long offset, long length, OutputStream outputStream) throws IOException {
+        imageFileRepository.copyImageData(imageId, offset, length, outputStream);
+    }
+
+    @Override
+    public byte[] read(ImageFile image) {
+        return image.getData();
+    }
+
+    @Override
+    public void delete(Long imageId) {
+    }
+}
@@ -0,0 +1,49 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_products_name_trgm ON products USING gin (lower(name) gin_trgm_ops);
+
+-- images are stored as large objects, which outlive their row unless unlinked explicitly
+CREATE EXTENSION IF NOT EXISTS lo;
+
+DROP TRIGGER IF EXISTS trg_images_data_lo ON images;
+CREATE TRIGGER trg_images_data_lo BEFORE UPDATE OR DELETE ON images
+    FOR EACH ROW EXECUTE FUNCTION lo_manage(data);
+
+DROP TRIGGER IF EXISTS trg_image_variants_data_lo ON image_variants;
+CREATE TRIGGER trg_image_variants_data_lo BEFORE UPDATE OR DELETE ON image_variants
+    FOR EACH ROW EXECUTE FUNCTION lo_manage(data);
+
+-- data stays empty for images kept outside the database
+ALTER TABLE images ALTER COLUMN data DROP NOT NULL;
+
+-- change_version is the id of the transaction that last wrote a product, tombstones keep deleted ids for delta sync
+ALTER TABLE products ADD COLUMN IF NOT EXISTS change_version bigint;
+CREATE INDEX IF NOT EXISTS idx_products_change_version ON products (change_version);
+
+CREATE TABLE IF NOT EXISTS product_tombstones (
+    product_id bigint PRIMARY KEY,
+    change_version bigint NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_product_tombstones_change_version ON product_tombstones (change_version);
+
+CREATE OR REPLACE FUNCTION products_stamp_change_version() RETURNS trigger AS
+    'BEGIN NEW.change_version := txid_current(); RETURN NEW; END'
+    LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_products_change_version ON products;
+CREATE TRIGGER trg_products_change_version BEFORE INSERT OR UPDATE ON products
+    FOR EACH ROW EXECUTE FUNCTION products_stamp_change_version();
+
+CREATE OR REPLACE FUNCTION products_record_tombstone() RETURNS trigger AS
+    'BEGIN
+        INSERT INTO product_tombstones (product_id, change_version) VALUES (OLD.id, txid_current())
+        ON CONFLICT (product_id) DO UPDATE SET change_version = EXCLUDED.change_version;
+        RETURN OLD;
+    END'
+    LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_products_tombstone ON products;
+CREATE TRIGGER trg_products_tombstone AFTER DELETE ON products
+    FOR EACH ROW EXECUTE FUNCTION products_record_tombstone();
+
+UPDATE products SET change_version = txid_current() WHERE change_version IS NULL;
@@ -2,6 +2,10 @@ package com.filip.managementapp;
 
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
-@DataJpaTest(properties = {"application-test.properties"})
+@DataJpaTest(properties = {
+        "application-test.properties",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
 public abstract class AbstractRepositoryTest {
 }
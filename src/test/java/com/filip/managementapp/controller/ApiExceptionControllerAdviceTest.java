@@ -1,7 +1,11 @@
 package com.filip.managementapp.controller;
 
+import com.filip.managementapp.exception.ApiBadRequestException;
+import com.filip.managementapp.exception.ApiConflictException;
 import com.filip.managementapp.exception.ApiExceptionResponse;
 import com.filip.managementapp.exception.ApiForbiddenException;
+import com.filip.managementapp.exception.ApiPreconditionFailedException;
+import com.filip.managementapp.exception.ApiPreconditionRequiredException;
 import com.filip.managementapp.exception.ResourceAlreadyExistsException;
 import com.filip.managementapp.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.Test;
@@ -54,6 +58,66 @@ class ApiExceptionControllerAdviceTest {
         assertThat(responseBody.exception()).isEqualTo(exception.getClass().getName());
     }
 
+    @Test
+    void handleApiConflictException() {
+        String message = "Product with id 1 has fewer than 3 items in stock";
+        ApiConflictException exception = new ApiConflictException(message);
+
+        var response = apiExceptionControllerAdvice.handleApiConflictException(exception);
+        ApiExceptionResponse responseBody = (ApiExceptionResponse) response.getBody();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(responseBody).isNotNull();
+        assertThat(responseBody.httpStatus()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(responseBody.message()).isEqualTo(message);
+        assertThat(responseBody.exception()).isEqualTo(exception.getClass().getName());
+    }
+
+    @Test
+    void handlePreconditionFailedException() {
+        String message = "Product with id 1 is no longer at version 2";
+        ApiPreconditionFailedException exception = new ApiPreconditionFailedException(message);
+
+        var response = apiExceptionControllerAdvice.handlePreconditionFailedException(exception);
+        ApiExceptionResponse responseBody = (ApiExceptionResponse) response.getBody();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(responseBody).isNotNull();
+        assertThat(responseBody.httpStatus()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(responseBody.message()).isEqualTo(message);
+        assertThat(responseBody.exception()).isEqualTo(exception.getClass().getName());
+    }
+
+    @Test
+    void handleApiPreconditionRequiredException() {
+        String message = "If-Match header with the product version is required";
+        ApiPreconditionRequiredException exception = new ApiPreconditionRequiredException(message);
+
+        var response = apiExceptionControllerAdvice.handleApiPreconditionRequiredException(exception);
+        ApiExceptionResponse responseBody = (ApiExceptionResponse) response.getBody();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_REQUIRED);
+        assertThat(responseBody).isNotNull();
+        assertThat(responseBody.httpStatus()).isEqualTo(HttpStatus.PRECONDITION_REQUIRED);
+        assertThat(responseBody.message()).isEqualTo(message);
+        assertThat(responseBody.exception()).isEqualTo(exception.getClass().getName());
+    }
+
+    @Test
+    void handleApiBadRequestException() {
+        String message = "Invalid cursor 'abc'";
+        ApiBadRequestException exception = new ApiBadRequestException(message);
+
+        var response = apiExceptionControllerAdvice.handleApiBadRequestException(exception);
+        ApiExceptionResponse responseBody = (ApiExceptionResponse) response.getBody();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(responseBody).isNotNull();
+        assertThat(responseBody.httpStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(responseBody.message()).isEqualTo(message);
+        assertThat(responseBody.exception()).isEqualTo(exception.getClass().getName());
+    }
+
     @Test
     void handleResourceAlreadyExistsException() {
         String message = "User with email email123@email.com already exists!";
@@ -2,33 +2,57 @@ package com.filip.managementapp.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.filip.managementapp.AbstractControllerITest;
-import com.filip.managementapp.dto.ImageFileDto;
-import com.filip.managementapp.dto.ProductDto;
+import com.filip.managementapp.dto.ProductBatchRequest;
+import com.filip.managementapp.dto.ProductChanges;
+import com.filip.managementapp.dto.ProductCursor;
+import com.filip.managementapp.dto.ProductCursorPage;
 import com.filip.managementapp.dto.ProductRequest;
+import com.filip.managementapp.dto.ProductSuggestion;
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.dto.StockChangeRequest;
+import com.filip.managementapp.exception.ApiBadRequestException;
+import com.filip.managementapp.exception.ApiPreconditionFailedException;
 import com.filip.managementapp.exception.ResourceAlreadyExistsException;
 import com.filip.managementapp.exception.ResourceNotFoundException;
 import com.filip.managementapp.mapper.ProductMapper;
 import com.filip.managementapp.model.ImageFile;
+import com.filip.managementapp.model.ImageVariantSize;
 import com.filip.managementapp.model.Product;
+import com.filip.managementapp.model.StockReservation;
+import com.filip.managementapp.repository.ImageFileRepository;
 import com.filip.managementapp.repository.ProductRepository;
+import com.filip.managementapp.repository.StockReservationRepository;
+import com.filip.managementapp.service.HotStockCounters;
+import com.filip.managementapp.service.ProductImageService;
+import com.filip.managementapp.service.ProductCatalogCache;
+import com.filip.managementapp.service.ProductNameSuggester;
+import com.filip.managementapp.service.ProductSearchIndex;
 import com.filip.managementapp.service.ProductService;
 import com.filip.managementapp.validation.TestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 class ProductControllerTest extends AbstractControllerITest {
 
@@ -46,6 +70,33 @@ class ProductControllerTest extends AbstractControllerITest {
     @Autowired
     private ProductMapper productMapper;
 
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private ImageFileRepository imageFileRepository;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductNameSuggester productNameSuggester;
+
+    @Autowired
+    private HotStockCounters hotStockCounters;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private ProductImageService productImageService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     private final TestUtils testUtils = new TestUtils();
 
     private final Product product;
@@ -55,6 +106,9 @@ class ProductControllerTest extends AbstractControllerITest {
     @BeforeEach
     void setUp() {
         productRepository.deleteAll();
+        imageFileRepository.deleteAllInBatch();
+        stockReservationRepository.deleteAllInBatch();
+        productCatalogCache.evict();
     }
 
     public ProductControllerTest() {
@@ -117,16 +171,19 @@ class ProductControllerTest extends AbstractControllerITest {
                 .andExpect(status().isOk())
                 .andReturn();
 
-        List<ProductDto> productDtos = List.of(objectMapper.readValue(mvcResult.getResponse().getContentAsString(), ProductDto[].class));
+        List<ProductSummaryDto> productSummaries = List.of(
+                objectMapper.readValue(mvcResult.getResponse().getContentAsString(), ProductSummaryDto[].class)
+        );
 
-        assertThat(productDtos)
+        assertThat(productSummaries)
                 .isNotNull()
                 .isNotEmpty()
                 .hasSize(products.size())
-                .containsAll(savedProducts.stream().map(productMapper::productToProductDto).toList());
+                .containsAll(savedProducts.stream().map(productMapper::productToProductSummaryDto).toList());
 
-        assertThat(productDtos.get(0)).hasFieldOrPropertyWithValue("isAvailable", true);
-        assertThat(productDtos.get(productDtos.size() - 1)).hasFieldOrPropertyWithValue("isAvailable", false);
+        assertThat(productSummaries.get(0)).hasFieldOrPropertyWithValue("isAvailable", true);
+        assertThat(productSummaries.get(productSummaries.size() - 1)).hasFieldOrPropertyWithValue("isAvailable", false);
+        assertThat(mvcResult.getResponse().getContentAsString()).doesNotContain("productImage");
     }
 
     @Test
@@ -136,6 +193,173 @@ class ProductControllerTest extends AbstractControllerITest {
                 .andExpect(content().json("[]"));
     }
 
+    @Test
+    void findAllProductsShouldReturnNotModifiedForCurrentETag() throws Exception {
+        productRepository.saveAndFlush(this.product);
+
+        String eTag = mockMvc.perform(get(PRODUCTS_API_URL))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(PRODUCTS_API_URL).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser(username = "username", roles = "ADMIN")
+    void findAllProductsShouldReturnNewETagAfterProductDeleted() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+        String eTag = mockMvc.perform(get(PRODUCTS_API_URL))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(delete(PRODUCTS_API_URL + "/" + savedProduct.getId()))
+                .andExpect(status().isNoContent());
+
+        String newETag = mockMvc.perform(get(PRODUCTS_API_URL).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        assertThat(newETag).isNotNull().isNotEqualTo(eTag);
+    }
+
+    @Test
+    void findProductsPageShouldFollowNextCursorThroughCatalog() throws Exception {
+        List<Product> savedProducts = productRepository.saveAllAndFlush(List.of(
+                product,
+                new Product(null, "Product name 2", "Short description", "Description", 1L, 1.0, false),
+                new Product(null, "Product name 3", "Short description", "Description", 1L, 1.0, true)
+        ));
+
+        MvcResult firstResult = mockMvc.perform(get(PRODUCTS_API_URL).param("size", "2"))
+                .andExpect(status().isOk())
+                .andReturn();
+        ProductCursorPage firstPage = objectMapper.readValue(firstResult.getResponse().getContentAsString(), ProductCursorPage.class);
+
+        MvcResult secondResult = mockMvc.perform(get(PRODUCTS_API_URL)
+                        .param("size", "2")
+                        .param("cursor", firstPage.nextCursor()))
+                .andExpect(status().isOk())
+                .andReturn();
+        ProductCursorPage secondPage = objectMapper.readValue(secondResult.getResponse().getContentAsString(), ProductCursorPage.class);
+
+        assertThat(firstPage.content())
+                .extracting(ProductSummaryDto::id)
+                .containsExactly(savedProducts.get(0).getId(), savedProducts.get(2).getId());
+        assertThat(firstPage.nextCursor()).isNotNull();
+        assertThat(secondPage.content())
+                .extracting(ProductSummaryDto::id)
+                .containsExactly(savedProducts.get(1).getId());
+        assertThat(secondPage.nextCursor()).isNull();
+    }
+
+    @Test
+    void findAllProductsShouldFilterProducts() throws Exception {
+        List<Product> savedProducts = productRepository.saveAllAndFlush(List.of(
+                product,
+                new Product(null, "LCD Monitor 456", "Short description", "Description", 0L, 99.0, false),
+                new Product(null, "OLED Monitor", "Short description", "Description", 5L, 599.0, true)
+        ));
+
+        MvcResult mvcResult = mockMvc.perform(get(PRODUCTS_API_URL)
+                        .param("name", "lcd")
+                        .param("minPrice", "100")
+                        .param("maxPrice", "300")
+                        .param("isAvailable", "true")
+                        .param("minQuantity", "1"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<ProductSummaryDto> productSummaries = List.of(
+                objectMapper.readValue(mvcResult.getResponse().getContentAsString(), ProductSummaryDto[].class)
+        );
+
+        assertThat(productSummaries)
+                .containsExactly(productMapper.productToProductSummaryDto(savedProducts.get(0)));
+    }
+
+    @Test
+    void findProductsPageShouldReturnBadRequestForInvalidCursor() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get(PRODUCTS_API_URL).param("size", "2").param("cursor", "invalid"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        assertThat(mvcResult.getResolvedException())
+                .isNotNull()
+                .isInstanceOf(ApiBadRequestException.class)
+                .hasMessage(String.format(ProductCursor.INVALID_CURSOR_STRING, "invalid"));
+    }
+
+    @Test
+    void findProductFacetsShouldCountCatalog() throws Exception {
+        productRepository.saveAndFlush(this.product);
+        productRepository.saveAndFlush(new Product(
+                null, "Keyboard", "Mechanical keyboard", "Keyboard with blue switches", 0L, 49.90, false
+        ));
+
+        mockMvc.perform(get(PRODUCTS_API_URL + "/facets"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.available").value(1))
+                .andExpect(jsonPath("$.unavailable").value(1))
+                .andExpect(jsonPath("$.inStock").value(1))
+                .andExpect(jsonPath("$.outOfStock").value(1))
+                .andExpect(jsonPath("$.price[1].from").value(25.0))
+                .andExpect(jsonPath("$.price[1].count").value(1))
+                .andExpect(jsonPath("$.price[3].count").value(1));
+    }
+
+    @Test
+    void searchProductsShouldReturnMatchingProducts() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+        productRepository.saveAndFlush(new Product(
+                null, "Keyboard", "Mechanical keyboard", "Keyboard with blue switches", 5L, 49.90, true
+        ));
+        productSearchIndex.rebuild();
+
+        mockMvc.perform(get(PRODUCTS_API_URL + "/search").param("q", "lcd monitor"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(
+                        List.of(productMapper.productToProductSummaryDto(savedProduct))
+                )));
+    }
+
+    @Test
+    void searchProductsShouldReturnBadRequestForBlankQuery() throws Exception {
+        mockMvc.perform(get(PRODUCTS_API_URL + "/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void suggestProductsShouldReturnNamesStartingWithPrefix() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+        productRepository.saveAndFlush(new Product(
+                null, "Keyboard", "Mechanical keyboard", "Keyboard with blue switches", 5L, 49.90, true
+        ));
+        productNameSuggester.rebuild();
+
+        mockMvc.perform(get(PRODUCTS_API_URL + "/suggest").param("prefix", "lcd"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(
+                        List.of(new ProductSuggestion(savedProduct.getId(), savedProduct.getName()))
+                )));
+    }
+
+    @Test
+    void suggestProductsShouldReturnBadRequestForInvalidLimit() throws Exception {
+        mockMvc.perform(get(PRODUCTS_API_URL + "/suggest").param("prefix", "lcd").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void findProductByIdShouldReturnProduct() throws Exception {
         Product savedProduct = productRepository.saveAndFlush(this.product);
@@ -144,10 +368,36 @@ class ProductControllerTest extends AbstractControllerITest {
         mockMvc.perform(get(PRODUCTS_API_URL + "/" + productId))
                 .andExpect(status().isOk())
                 .andExpect(content()
-                        .json(objectMapper.writeValueAsString(productMapper.productToProductDto(savedProduct)))
+                        .json(objectMapper.writeValueAsString(productMapper.productToProductSummaryDto(savedProduct)))
                 );
     }
 
+    @Test
+    @WithMockUser(username = "username", roles = "ADMIN")
+    void updateProductShouldAcceptETagReturnedByFindProductById() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+        Long productId = savedProduct.getId();
+
+        String eTag = mockMvc.perform(get(PRODUCTS_API_URL + "/" + productId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + savedProduct.getVersion() + "\""))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(
+                        put(PRODUCTS_API_URL + "/" + productId)
+                                .header(HttpHeaders.IF_MATCH, eTag)
+                                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                                .content(testUtils.buildUrlEncodedFormEntity(
+                                                testUtils.getParamsFromProductRequest(productRequest)
+                                        )
+                                )
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + (savedProduct.getVersion() + 1) + "\""));
+    }
+
     @Test
     void findProductByIdShouldReturnResourceNotFoundApiException() throws Exception {
         Product savedProduct = productRepository.saveAndFlush(this.product);
@@ -165,6 +415,196 @@ class ProductControllerTest extends AbstractControllerITest {
         assertThat(mvcResult.getResponse().getContentAsString()).contains(exceptionMessage);
     }
 
+    @Test
+    void findProductImageShouldStreamImageBytes() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        MvcResult mvcResult = mockMvc.perform(get(PRODUCTS_API_URL + "/" + savedProduct.getId() + "/image"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_JPEG_VALUE))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4L))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + savedProduct.getProductImage().getId() + "\""))
+                .andExpect(content().bytes("DATA".getBytes()));
+    }
+
+    @Test
+    void findProductImageShouldServeOtherStoredTypesAsAttachment() throws Exception {
+        this.product.getProductImage().setContentType(MediaType.TEXT_HTML_VALUE);
+        Product htmlProduct = productRepository.saveAndFlush(this.product);
+        Product malformedProduct = productRepository.saveAndFlush(new Product(
+                null, "Malformed image product", "Short", "Description", 1L, 1.0, true,
+                new ImageFile(null, "image.jpg", "not a type", "DATA".getBytes())
+        ));
+
+        for (Product savedProduct : List.of(htmlProduct, malformedProduct)) {
+            MvcResult mvcResult = mockMvc.perform(get(PRODUCTS_API_URL + "/" + savedProduct.getId() + "/image"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE))
+                    .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, startsWith("attachment")))
+                    .andExpect(content().bytes("DATA".getBytes()));
+        }
+    }
+
+    @Test
+    void findProductImageShouldStreamRequestedRange() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        MvcResult mvcResult = mockMvc.perform(get(PRODUCTS_API_URL + "/" + savedProduct.getId() + "/image")
+                        .header(HttpHeaders.RANGE, "bytes=1-2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1-2/4"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 2L))
+                .andExpect(content().bytes("AT".getBytes()));
+    }
+
+    @Test
+    void findProductImageShouldReturnRangeNotSatisfiable() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        mockMvc.perform(get(PRODUCTS_API_URL + "/" + savedProduct.getId() + "/image")
+                        .header(HttpHeaders.RANGE, "bytes=10-20"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */4"));
+    }
+
+    @Test
+    void findProductImageShouldFallBackToOriginalWhileVariantIsMissing() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        MvcResult mvcResult = mockMvc.perform(get(PRODUCTS_API_URL + "/" + savedProduct.getId() + "/image")
+                        .param("size", "thumbnail"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + savedProduct.getProductImage().getId() + "\""))
+                .andExpect(content().bytes("DATA".getBytes()));
+    }
+
+    @Test
+    void findProductImageShouldReturnBadRequestForUnknownSize() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        MvcResult mvcResult = mockMvc.perform(get(PRODUCTS_API_URL + "/" + savedProduct.getId() + "/image")
+                        .param("size", "huge"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        assertThat(mvcResult.getResolvedException())
+                .isInstanceOf(ApiBadRequestException.class)
+                .hasMessageStartingWith(String.format(ImageVariantSize.INVALID_IMAGE_SIZE_STRING, "huge", ""));
+    }
+
+    @Test
+    void findProductImageShouldReturnNotModified() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        mockMvc.perform(get(PRODUCTS_API_URL + "/" + savedProduct.getId() + "/image")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + savedProduct.getProductImage().getId() + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void findProductImageShouldReturnResourceNotFoundApiException() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(new Product(
+                null,
+                "Product without image",
+                "Short description",
+                "Description",
+                1L,
+                1.0,
+                true
+        ));
+
+        MvcResult mvcResult = mockMvc.perform(get(PRODUCTS_API_URL + "/" + savedProduct.getId() + "/image"))
+                .andExpect(status().isNotFound())
+                .andReturn();
+
+        assertThat(mvcResult.getResolvedException())
+                .isNotNull()
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage(String.format(ProductImageService.PRODUCT_IMAGE_NOT_FOUND_STRING, savedProduct.getId()));
+    }
+
+    @Test
+    @WithMockUser(username = "username", roles = "ADMIN")
+    void importProductsShouldStoreValidRowsAndReportInvalidOnes() throws Exception {
+        productRepository.saveAndFlush(this.product);
+        String csv = """
+                name,shortDescription,description,quantity,price,isAvailable
+                Keyboard,Mechanical keyboard,Keyboard with blue switches,5,49.9,true
+                LCD Monitor 123,Modern LCD technology,Duplicate,1,1,true
+                Mouse,,Wireless mouse,1,9.9,true
+                """;
+
+        mockMvc.perform(post(PRODUCTS_API_URL + "/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0].row").value(3))
+                .andExpect(jsonPath("$.errors[1].message").value("Short description of the product is required"));
+
+        mockMvc.perform(get(PRODUCTS_API_URL + "/suggest").param("prefix", "keyb"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Keyboard"));
+        mockMvc.perform(get(PRODUCTS_API_URL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "username", roles = "USER")
+    void importProductsShouldBeForbiddenForNonAdmin() throws Exception {
+        mockMvc.perform(post(PRODUCTS_API_URL + "/import")
+                        .contentType("application/x-ndjson")
+                        .content("{}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "username", roles = "ADMIN")
+    void exportProductsShouldStreamCsv() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        MvcResult mvcResult = mockMvc.perform(get(PRODUCTS_API_URL + "/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.csv\""))
+                .andExpect(content().string("""
+                        id,name,shortDescription,description,quantity,price,isAvailable,imageId,version
+                        %d,LCD Monitor 123,Modern LCD technology,Great monitor using LCD technology,15,199.5,true,%d,0
+                        """.formatted(savedProduct.getId(), savedProduct.getProductImage().getId())));
+    }
+
+    @Test
+    @WithMockUser(username = "username", roles = "USER")
+    void exportProductsShouldBeForbiddenForNonAdmin() throws Exception {
+        mockMvc.perform(get(PRODUCTS_API_URL + "/export"))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @WithMockUser(username = "username", roles = "ADMIN")
     void saveProductShouldSaveAndReturnProduct() throws Exception {
@@ -178,16 +618,16 @@ class ProductControllerTest extends AbstractControllerITest {
                 .andExpect(status().isCreated())
                 .andReturn();
 
-        ProductDto savedProductDtoResponse = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), ProductDto.class);
+        ProductSummaryDto savedProductResponse = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), ProductSummaryDto.class);
         List<Product> savedProducts = productRepository.findAll();
 
         assertThat(savedProducts)
                 .isNotEmpty()
                 .hasSize(1);
-        assertThat(savedProductDtoResponse)
+        assertThat(savedProductResponse)
                 .isNotNull()
-                .isEqualTo(productMapper.productToProductDto(savedProducts.get(0)))
-                .hasNoNullFieldsOrPropertiesExcept("productImage")
+                .isEqualTo(productMapper.productToProductSummaryDto(savedProducts.get(0)))
+                .hasNoNullFieldsOrPropertiesExcept("imageId")
                 .hasFieldOrPropertyWithValue("name", this.product.getName())
                 .hasFieldOrPropertyWithValue("price", this.product.getPrice())
                 .hasFieldOrPropertyWithValue("isAvailable", this.product.getIsAvailable())
@@ -197,6 +637,61 @@ class ProductControllerTest extends AbstractControllerITest {
                 .hasFieldOrPropertyWithValue("quantity", this.product.getQuantity());
     }
 
+    @Test
+    @WithMockUser(username = "username", roles = "ADMIN")
+    void saveProductShouldShareImageWithSameContentUntilLastProductIsDeleted() throws Exception {
+        byte[] imageData = "same image bytes".getBytes();
+        ProductSummaryDto first = uploadProductWithImage("First product", imageData);
+        ProductSummaryDto second = uploadProductWithImage("Second product", imageData);
+
+        Long firstImageId = productRepository.findById(first.id()).orElseThrow().getProductImage().getId();
+        Long secondImageId = productRepository.findById(second.id()).orElseThrow().getProductImage().getId();
+        assertThat(firstImageId).isEqualTo(secondImageId);
+        assertThat(imageFileRepository.findById(firstImageId)).get()
+                .hasFieldOrPropertyWithValue("referenceCount", 2L);
+
+        mockMvc.perform(delete(PRODUCTS_API_URL + "/" + first.id())).andExpect(status().isNoContent());
+        assertThat(imageFileRepository.findById(firstImageId)).get()
+                .hasFieldOrPropertyWithValue("referenceCount", 1L);
+
+        mockMvc.perform(delete(PRODUCTS_API_URL + "/" + second.id())).andExpect(status().isNoContent());
+        assertThat(imageFileRepository.findById(firstImageId)).isEmpty();
+    }
+
+    @Test
+    void saveProductShouldShareImageUploadedConcurrentlyForTheFirstTime() throws Exception {
+        byte[] imageData = "concurrent image bytes".getBytes();
+        CountDownLatch firstUploadInserted = new CountDownLatch(1);
+        CountDownLatch secondUploadStarted = new CountDownLatch(1);
+        CompletableFuture<Long> firstImageId = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            Long imageId = productImageService
+                    .acquireImage(new MockMultipartFile("productImage", "first.jpg", MediaType.IMAGE_JPEG_VALUE, imageData))
+                    .getId();
+            firstUploadInserted.countDown();
+            try {
+                // keeps the inserted row uncommitted while the second upload runs into it
+                secondUploadStarted.await();
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return imageId;
+        }));
+        firstUploadInserted.await();
+
+        CompletableFuture<ProductSummaryDto> second = CompletableFuture.supplyAsync(() -> {
+            secondUploadStarted.countDown();
+            return productService.saveProduct(new ProductRequest(
+                    null, "Second product", "Short", "Description", 1L, 1.0, true,
+                    new MockMultipartFile("productImage", "second.jpg", MediaType.IMAGE_JPEG_VALUE, imageData)
+            ));
+        });
+
+        assertThat(second.get(10, TimeUnit.SECONDS).imageId()).isEqualTo(firstImageId.get(10, TimeUnit.SECONDS));
+        assertThat(imageFileRepository.findById(firstImageId.get())).get()
+                .hasFieldOrPropertyWithValue("referenceCount", 2L);
+    }
+
     @Test
     @WithMockUser(username = "username", roles = "ADMIN")
     void saveProductShouldReturnResourceAlreadyExistsApiException() throws Exception {
@@ -268,7 +763,7 @@ class ProductControllerTest extends AbstractControllerITest {
         Product savedProduct = productRepository.saveAndFlush(this.product);
         Long productId = savedProduct.getId();
 
-        ProductDto expectedProductDtoResponse = new ProductDto(
+        ProductSummaryDto expectedProductResponse = new ProductSummaryDto(
                 productId,
                 productRequest.name(),
                 productRequest.shortDescription(),
@@ -276,18 +771,16 @@ class ProductControllerTest extends AbstractControllerITest {
                 productRequest.quantity(),
                 productRequest.price(),
                 productRequest.isAvailable(),
-                new ImageFileDto(
-                        savedProduct.getProductImage().getFilename(),
-                        savedProduct.getProductImage().getContentType(),
-                        savedProduct.getProductImage().getData()
-                )
+                savedProduct.getProductImage().getId(),
+                savedProduct.getVersion() + 1
         );
-        Product expectedUpdatedProduct = productMapper.productDtoToProduct(expectedProductDtoResponse);
-        expectedUpdatedProduct.setProductImage(savedProduct.getProductImage());
-        expectedUpdatedProduct.setId(savedProduct.getId());
+        Product expectedUpdatedProduct = productMapper.productRequestToProduct(this.productRequest);
+        expectedUpdatedProduct.setId(productId);
+        expectedUpdatedProduct.setVersion(savedProduct.getVersion() + 1);
 
         mockMvc.perform(
                 put(PRODUCTS_API_URL + "/" + productId)
+                        .header(HttpHeaders.IF_MATCH, "\"" + savedProduct.getVersion() + "\"")
                         .contentType(MediaType.APPLICATION_FORM_URLENCODED)
                         .content(testUtils.buildUrlEncodedFormEntity(
                                         testUtils.getParamsFromProductRequest(this.productRequest)
@@ -295,7 +788,8 @@ class ProductControllerTest extends AbstractControllerITest {
                         )
         )
                 .andExpect(status().isOk())
-                .andExpect(content().json(objectMapper.writeValueAsString(expectedProductDtoResponse)));
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + (savedProduct.getVersion() + 1) + "\""))
+                .andExpect(content().json(objectMapper.writeValueAsString(expectedProductResponse), true));
 
         Optional<Product> savedUpdatedProduct = productRepository.findById(productId);
         List<Product> savedProducts = productRepository.findAll();
@@ -304,6 +798,7 @@ class ProductControllerTest extends AbstractControllerITest {
                 .isNotNull()
                 .isPresent()
                 .contains(expectedUpdatedProduct);
+        assertThat(savedUpdatedProduct.get().getProductImage().getId()).isEqualTo(savedProduct.getProductImage().getId());
         assertThat(savedProducts.size()).isOne();
     }
 
@@ -315,6 +810,7 @@ class ProductControllerTest extends AbstractControllerITest {
 
         MvcResult mvcResult = mockMvc.perform(
                         put(PRODUCTS_API_URL + "/" + productId)
+                                .header(HttpHeaders.IF_MATCH, "\"" + savedProduct.getVersion() + "\"")
                                 .contentType(MediaType.APPLICATION_FORM_URLENCODED)
                                 .content(testUtils.buildUrlEncodedFormEntity(
                                                 testUtils.getParamsFromProductRequest(this.productRequest)
@@ -365,6 +861,7 @@ class ProductControllerTest extends AbstractControllerITest {
 
         MvcResult mvcResult = mockMvc.perform(
                         put(PRODUCTS_API_URL + "/" + productId)
+                                .header(HttpHeaders.IF_MATCH, "\"" + savedProduct.getVersion() + "\"")
                                 .contentType(MediaType.APPLICATION_FORM_URLENCODED)
                                 .content(testUtils.buildUrlEncodedFormEntity(
                                                 testUtils.getParamsFromProductRequest(productRequest)
@@ -392,6 +889,99 @@ class ProductControllerTest extends AbstractControllerITest {
                 .contains(anotherSavedProduct);
     }
 
+    @Test
+    @WithMockUser(username = "username", roles = "ADMIN")
+    void updateProductShouldReturnPreconditionRequiredWithoutIfMatch() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        mockMvc.perform(
+                        put(PRODUCTS_API_URL + "/" + savedProduct.getId())
+                                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                                .content(testUtils.buildUrlEncodedFormEntity(
+                                                testUtils.getParamsFromProductRequest(productRequest)
+                                        )
+                                )
+                )
+                .andExpect(status().isPreconditionRequired());
+
+        assertThat(productRepository.findById(savedProduct.getId())).contains(this.product);
+    }
+
+    @Test
+    @WithMockUser(username = "username", roles = "ADMIN")
+    void updateProductShouldReturnPreconditionFailedForStaleVersion() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+        String staleETag = "\"" + savedProduct.getVersion() + "\"";
+        mockMvc.perform(post(PRODUCTS_API_URL + "/" + savedProduct.getId() + "/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StockChangeRequest(1L))))
+                .andExpect(status().isOk());
+
+        MvcResult mvcResult = mockMvc.perform(
+                        put(PRODUCTS_API_URL + "/" + savedProduct.getId())
+                                .header(HttpHeaders.IF_MATCH, staleETag)
+                                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                                .content(testUtils.buildUrlEncodedFormEntity(
+                                                testUtils.getParamsFromProductRequest(productRequest)
+                                        )
+                                )
+                )
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + (savedProduct.getVersion() + 1) + "\""))
+                .andReturn();
+
+        assertThat(mvcResult.getResolvedException()).isInstanceOf(ApiPreconditionFailedException.class);
+        assertThat(productRepository.findById(savedProduct.getId()))
+                .get()
+                .extracting(Product::getName, Product::getQuantity)
+                .containsExactly(savedProduct.getName(), savedProduct.getQuantity() - 1);
+    }
+
+    @Test
+    @WithMockUser(username = "username", roles = "ADMIN")
+    void patchProductShouldChangeOnlyGivenFields() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        mockMvc.perform(patch(PRODUCTS_API_URL + "/" + savedProduct.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"" + savedProduct.getVersion() + "\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"price\": 149.99}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + (savedProduct.getVersion() + 1) + "\""))
+                .andExpect(jsonPath("$.price").value(149.99))
+                .andExpect(jsonPath("$.imageId").value(savedProduct.getProductImage().getId()));
+
+        assertThat(productRepository.findById(savedProduct.getId()))
+                .get()
+                .extracting(Product::getName, Product::getQuantity, Product::getPrice, Product::getVersion)
+                .containsExactly(savedProduct.getName(), savedProduct.getQuantity(), 149.99, savedProduct.getVersion() + 1);
+    }
+
+    @Test
+    @WithMockUser(username = "username", roles = "ADMIN")
+    void patchProductShouldReturnPreconditionRequiredWithoutIfMatch() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        mockMvc.perform(patch(PRODUCTS_API_URL + "/" + savedProduct.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 149.99}"))
+                .andExpect(status().isPreconditionRequired());
+    }
+
+    @Test
+    @WithMockUser(username = "username", roles = "ADMIN")
+    void patchProductShouldReturnBadRequestForInvalidField() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        mockMvc.perform(patch(PRODUCTS_API_URL + "/" + savedProduct.getId())
+                        .header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \" \", \"price\": -1}"))
+                .andExpect(status().isBadRequest());
+
+        assertThat(productRepository.findById(savedProduct.getId())).contains(savedProduct);
+    }
+
     @Test
     void updateUserShouldReturnUnauthorized() throws Exception {
         Product savedProduct = productRepository.saveAndFlush(this.product);
@@ -494,4 +1084,295 @@ class ProductControllerTest extends AbstractControllerITest {
         Optional<Product> foundedProduct = productRepository.findById(savedProduct.getId());
         assertThat(foundedProduct).isPresent();
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "username")
+    void reserveStockShouldDecrementQuantityAndMarkSoldOutProductUnavailable() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+        String url = PRODUCTS_API_URL + "/" + savedProduct.getId() + "/reserve";
+
+        mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StockChangeRequest(15L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(0))
+                .andExpect(jsonPath("$.isAvailable").value(false));
+
+        mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StockChangeRequest(1L))))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get(PRODUCTS_API_URL + "/" + savedProduct.getId()))
+                .andExpect(jsonPath("$.quantity").value(0));
+    }
+
+    @Test
+    @WithMockUser(username = "username", roles = "ADMIN")
+    void releaseStockShouldIncrementQuantity() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        mockMvc.perform(post(PRODUCTS_API_URL + "/" + savedProduct.getId() + "/release")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StockChangeRequest(5L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(20));
+    }
+
+    @Test
+    @WithMockUser(username = "username")
+    void reserveStockShouldReturnBadRequestForNonPositiveQuantity() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        mockMvc.perform(post(PRODUCTS_API_URL + "/" + savedProduct.getId() + "/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StockChangeRequest(0L))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "username", roles = "ADMIN")
+    void reserveHotStockShouldCountInMemoryAndWriteBehind() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+        String url = PRODUCTS_API_URL + "/" + savedProduct.getId();
+
+        mockMvc.perform(put(url + "/hot-stock"))
+                .andExpect(status().isNoContent());
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post(url + "/reserve")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new StockChangeRequest(5L))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.quantity").value(10 - i * 5));
+        }
+        mockMvc.perform(post(url + "/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StockChangeRequest(1L))))
+                .andExpect(status().isConflict());
+        assertThat(stockReservationRepository.findAll())
+                .extracting(StockReservation::getQuantity)
+                .containsExactly(5L, 5L, 5L);
+
+        hotStockCounters.flush();
+
+        assertThat(stockReservationRepository.findAll()).isEmpty();
+
+        Product storedProduct = productRepository.findById(savedProduct.getId()).orElseThrow();
+        assertThat(storedProduct.getQuantity()).isZero();
+        assertThat(storedProduct.getIsAvailable()).isFalse();
+        assertThat(storedProduct.getVersion()).isGreaterThan(savedProduct.getVersion());
+        mockMvc.perform(get(url))
+                .andExpect(jsonPath("$.quantity").value(0));
+
+        mockMvc.perform(delete(url + "/hot-stock"))
+                .andExpect(status().isNoContent());
+        assertThat(hotStockCounters.find(savedProduct.getId())).isNull();
+    }
+
+    @Test
+    void reconcileOnStartupShouldWriteReservationsLoggedBeforeRestart() {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+        stockReservationRepository.saveAndFlush(new StockReservation(null, savedProduct.getId(), 4L));
+        stockReservationRepository.saveAndFlush(new StockReservation(null, savedProduct.getId(), -1L));
+
+        hotStockCounters.reconcileOnStartup();
+
+        Product storedProduct = productRepository.findById(savedProduct.getId()).orElseThrow();
+        assertThat(storedProduct.getQuantity()).isEqualTo(savedProduct.getQuantity() - 3);
+        assertThat(stockReservationRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    @WithMockUser(username = "username", roles = "ADMIN")
+    void enableHotStockShouldReturnNotFound() throws Exception {
+        mockMvc.perform(put(PRODUCTS_API_URL + "/" + Long.MAX_VALUE + "/hot-stock"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "username", roles = "USER")
+    void enableHotStockShouldReturnForbidden() throws Exception {
+        mockMvc.perform(put(PRODUCTS_API_URL + "/1/hot-stock"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "username")
+    void releaseStockShouldReturnForbiddenForNonAdmin() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        mockMvc.perform(post(PRODUCTS_API_URL + "/" + savedProduct.getId() + "/release")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StockChangeRequest(5L))))
+                .andExpect(status().isForbidden());
+
+        assertThat(productRepository.findById(savedProduct.getId()))
+                .get()
+                .extracting(Product::getQuantity)
+                .isEqualTo(savedProduct.getQuantity());
+    }
+
+    @Test
+    void reserveStockShouldReturnUnauthorized() throws Exception {
+        mockMvc.perform(post(PRODUCTS_API_URL + "/1/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StockChangeRequest(1L))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void findProductsByIdsShouldKeepRequestedOrderAndReportMissingIds() throws Exception {
+        Product first = productRepository.saveAndFlush(this.product);
+        Product second = productRepository.saveAndFlush(new Product(
+                null, "Second product", "Short description", "Description", 1L, 10.0, true
+        ));
+        long missingId = second.getId() + 100;
+
+        mockMvc.perform(get(PRODUCTS_API_URL)
+                        .param("ids", second.getId() + "," + missingId + "," + first.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.products[*].id").value(contains(second.getId().intValue(), first.getId().intValue())))
+                .andExpect(jsonPath("$.products[1].imageId").value(first.getProductImage().getId()))
+                .andExpect(jsonPath("$.missingIds[0]").value(missingId));
+    }
+
+    @Test
+    void findProductsByIdsShouldReturnBadRequestForEmptyId() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        mockMvc.perform(get(PRODUCTS_API_URL).param("ids", savedProduct.getId() + ",," + savedProduct.getId()))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString(ProductService.EMPTY_BATCH_ID_STRING)));
+    }
+
+    @Test
+    void findProductsByIdsShouldReturnBadRequestWhenCombinedWithPageSize() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        mockMvc.perform(get(PRODUCTS_API_URL).param("ids", savedProduct.getId().toString()).param("size", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString(ProductController.IDS_WITH_PAGE_STRING)));
+    }
+
+    @Test
+    void findProductsByIdsShouldAcceptLongListsInRequestBody() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+
+        mockMvc.perform(post(PRODUCTS_API_URL + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProductBatchRequest(List.of(savedProduct.getId())))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].id").value(savedProduct.getId()))
+                .andExpect(jsonPath("$.missingIds").isEmpty());
+    }
+
+    @Test
+    void findProductsByIdsShouldReturnBadRequestForEmptyBody() throws Exception {
+        mockMvc.perform(post(PRODUCTS_API_URL + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProductBatchRequest(List.of()))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "username")
+    void findProductChangesShouldReturnChangedProductsAndTombstonesSinceLastSync() throws Exception {
+        Product changedProduct = productRepository.saveAndFlush(this.product);
+        Product deletedProduct = productRepository.saveAndFlush(new Product(
+                null, "Product to delete", "Short description", "Description", 1L, 10.0, true
+        ));
+        Product unchangedProduct = productRepository.saveAndFlush(new Product(
+                null, "Unchanged product", "Short description", "Description", 1L, 10.0, true
+        ));
+        ProductChanges fullSync = getProductChanges(PRODUCTS_API_URL + "/changes");
+        assertThat(fullSync.products()).extracting(ProductSummaryDto::id)
+                .containsExactly(changedProduct.getId(), deletedProduct.getId(), unchangedProduct.getId());
+        assertThat(fullSync.deletedIds()).isEmpty();
+
+        mockMvc.perform(post(PRODUCTS_API_URL + "/" + changedProduct.getId() + "/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StockChangeRequest(1L))))
+                .andExpect(status().isOk());
+        productRepository.deleteById(deletedProduct.getId());
+
+        ProductChanges delta = getProductChanges(PRODUCTS_API_URL + "/changes?since=" + fullSync.version());
+        assertThat(delta.products()).extracting(ProductSummaryDto::id)
+                .contains(changedProduct.getId())
+                .doesNotContain(deletedProduct.getId(), unchangedProduct.getId());
+        assertThat(delta.products()).filteredOn(summary -> summary.id().equals(changedProduct.getId()))
+                .extracting(ProductSummaryDto::quantity)
+                .containsExactly(14L);
+        assertThat(delta.deletedIds()).containsExactly(deletedProduct.getId());
+        assertThat(delta.version()).isGreaterThanOrEqualTo(fullSync.version());
+    }
+
+    @Test
+    void findProductChangesShouldReturnBadRequestForNegativeVersion() throws Exception {
+        mockMvc.perform(get(PRODUCTS_API_URL + "/changes?since=-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "username")
+    void streamProductChangesShouldPushCommittedChanges() throws Exception {
+        Product savedProduct = productRepository.saveAndFlush(this.product);
+        MvcResult stream = mockMvc.perform(get(PRODUCTS_API_URL + "/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(post(PRODUCTS_API_URL + "/" + savedProduct.getId() + "/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StockChangeRequest(1L))))
+                .andExpect(status().isOk());
+
+        String events = awaitStreamContent(stream, "event:updated");
+        assertThat(events).contains("\"productId\":" + savedProduct.getId());
+        assertThat(events).contains("\"quantity\":14");
+        assertThat(stream.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    @Test
+    void streamProductChangesShouldAskForResetWhenMissedChangesAreGone() throws Exception {
+        MvcResult stream = mockMvc.perform(get(PRODUCTS_API_URL + "/stream")
+                        .header("Last-Event-ID", "0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(awaitStreamContent(stream, "event:reset")).contains("data:{}");
+    }
+
+    private ProductChanges getProductChanges(String url) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(), ProductChanges.class);
+    }
+
+    private String awaitStreamContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = stream.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = stream.getResponse().getContentAsString();
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+
+    private ProductSummaryDto uploadProductWithImage(String name, byte[] imageData) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(
+                        multipart(PRODUCTS_API_URL)
+                                .file(new MockMultipartFile("productImage", "image.jpg", MediaType.IMAGE_JPEG_VALUE, imageData))
+                                .param("name", name)
+                                .param("shortDescription", this.product.getShortDescription())
+                                .param("description", this.product.getDescription())
+                                .param("quantity", this.product.getQuantity().toString())
+                                .param("price", this.product.getPrice().toString())
+                                .param("isAvailable", this.product.getIsAvailable().toString())
+                )
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(), ProductSummaryDto.class);
+    }
+}
@@ -0,0 +1,24 @@
+package com.filip.managementapp.mapper;
+
+import java.util.stream.Stream;
+
+/**
+ * Fields that Hibernate bytecode enhancement adds to every entity. They stay null on entities built by a
+ * mapper, so null checks of mapped entities have to skip them.
+ */
+final class EnhancedEntityFields {
+
+    private static final String[] FIELDS = {
+            "$$_hibernate_entityEntryHolder",
+            "$$_hibernate_previousManagedEntity",
+            "$$_hibernate_nextManagedEntity",
+            "$$_hibernate_attributeInterceptor"
+    };
+
+    private EnhancedEntityFields() {
+    }
+
+    static String[] and(String... fields) {
+        return Stream.concat(Stream.of(FIELDS), Stream.of(fields)).toArray(String[]::new);
+    }
+}
@@ -6,10 +6,6 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mapstruct.factory.Mappers;
 import org.springframework.http.MediaType;
-import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.web.multipart.MultipartFile;
-
-import java.io.IOException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -64,7 +60,7 @@ class ImageFileMapperTest {
 
         assertThat(output)
                 .isNotNull()
-                .hasNoNullFieldsOrPropertiesExcept("id")
+                .hasNoNullFieldsOrPropertiesExcept(EnhancedEntityFields.and("id", "sha256", "dataSize"))
                 .isEqualTo(imageFile);
     }
 
@@ -72,26 +68,4 @@ class ImageFileMapperTest {
     void imageFileDtoToImageFileShouldReturnNull() {
         assertThat(imageFileMapper.imageFileDtoToImageFile(null)).isNull();
     }
-
-    @Test
-    void shouldMapMultipartFileToImageFile() throws IOException {
-        MultipartFile multipartFile = new MockMultipartFile(
-                "file",
-                imageFile.getFilename(),
-                imageFile.getContentType(),
-                imageFile.getData()
-        );
-        imageFile.setId(null);
-
-        ImageFile output = imageFileMapper.multipartFileToImageFile(multipartFile);
-
-        assertThat(output)
-                .isNotNull()
-                .isEqualTo(imageFile);
-    }
-
-    @Test
-    void multipartFileToImageFileShouldReturnNull() throws IOException {
-        assertThat(imageFileMapper.multipartFileToImageFile(null)).isNull();
-    }
-}
\ No newline at end of file
+}
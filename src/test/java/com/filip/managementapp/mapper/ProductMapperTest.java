@@ -3,6 +3,7 @@ package com.filip.managementapp.mapper;
 import com.filip.managementapp.dto.ImageFileDto;
 import com.filip.managementapp.dto.ProductDto;
 import com.filip.managementapp.dto.ProductRequest;
+import com.filip.managementapp.dto.ProductSummaryDto;
 import com.filip.managementapp.model.ImageFile;
 import com.filip.managementapp.model.Product;
 import org.junit.jupiter.api.BeforeEach;
@@ -39,6 +40,7 @@ class ProductMapperTest {
                     "DATA".getBytes()
             )
         );
+        this.product.setVersion(3L);
         this.productDto = new ProductDto(
                 product.getId(),
                 product.getName(),
@@ -51,7 +53,8 @@ class ProductMapperTest {
                         product.getProductImage().getFilename(),
                         product.getProductImage().getContentType(),
                         product.getProductImage().getData()
-                )
+                ),
+                product.getVersion()
         );
     }
 
@@ -71,6 +74,7 @@ class ProductMapperTest {
                         MediaType.IMAGE_JPEG_VALUE,
                         "DATA".getBytes())
         );
+        this.variableProduct.setVersion(3L);
     }
 
     @Test
@@ -94,7 +98,8 @@ class ProductMapperTest {
                 variableProduct.getQuantity(),
                 variableProduct.getPrice(),
                 variableProduct.getIsAvailable(),
-                null
+                null,
+                variableProduct.getVersion()
         );
         ProductDto output = productMapper.productToProductDto(variableProduct);
 
@@ -109,13 +114,46 @@ class ProductMapperTest {
         assertThat(productMapper.productToProductDto(null)).isNull();
     }
 
+    @Test
+    void shouldMapProductToProductSummaryDto() {
+        ProductSummaryDto expectedOutput = new ProductSummaryDto(
+                product.getId(),
+                product.getName(),
+                product.getShortDescription(),
+                product.getDescription(),
+                product.getQuantity(),
+                product.getPrice(),
+                product.getIsAvailable(),
+                product.getProductImage().getId(),
+                product.getVersion()
+        );
+
+        ProductSummaryDto output = productMapper.productToProductSummaryDto(product);
+
+        assertThat(output)
+                .isNotNull()
+                .isEqualTo(expectedOutput);
+    }
+
+    @Test
+    void shouldMapProductToProductSummaryDtoWithoutProductImage() {
+        variableProduct.setProductImage(null);
+
+        ProductSummaryDto output = productMapper.productToProductSummaryDto(variableProduct);
+
+        assertThat(output)
+                .isNotNull()
+                .hasNoNullFieldsOrPropertiesExcept("imageId")
+                .hasFieldOrPropertyWithValue("imageId", null);
+    }
+
     @Test
     void shouldMapProductDtoToProduct() {
         Product output = productMapper.productDtoToProduct(productDto);
 
         assertThat(output)
                 .isNotNull()
-                .hasNoNullFieldsOrProperties()
+                .hasNoNullFieldsOrPropertiesExcept(EnhancedEntityFields.and())
                 .isEqualTo(variableProduct);
     }
 
@@ -129,7 +167,8 @@ class ProductMapperTest {
                 variableProduct.getQuantity(),
                 variableProduct.getPrice(),
                 variableProduct.getIsAvailable(),
-                null
+                null,
+                variableProduct.getVersion()
         );
         variableProduct.setProductImage(null);
 
@@ -146,8 +185,10 @@ class ProductMapperTest {
     }
 
     @Test
-    void shouldMapProductRequestToProductWithProductImage() {
+    void shouldMapProductRequestToProductWithoutReadingProductImage() {
         variableProduct.setId(null);
+        variableProduct.setVersion(null);
+        variableProduct.setProductImage(null);
         ProductRequest productRequest = new ProductRequest(
                 null,
                 product.getName(),
@@ -174,6 +215,7 @@ class ProductMapperTest {
     @Test
     void shouldMapProductRequestToProductWithoutProductImage() {
         variableProduct.setId(null);
+        variableProduct.setVersion(null);
         variableProduct.setProductImage(null);
 
         ProductRequest productRequest = new ProductRequest(
@@ -191,7 +233,7 @@ class ProductMapperTest {
 
         assertThat(output)
                 .isNotNull()
-                .hasNoNullFieldsOrPropertiesExcept("productImage", "id")
+                .hasNoNullFieldsOrPropertiesExcept(EnhancedEntityFields.and("productImage", "id", "version"))
                 .isEqualTo(variableProduct);
     }
 
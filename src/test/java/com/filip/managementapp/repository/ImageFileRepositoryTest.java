@@ -0,0 +1,140 @@
+package com.filip.managementapp.repository;
+
+import com.filip.managementapp.AbstractRepositoryTest;
+import com.filip.managementapp.dto.ImageFileMetadata;
+import com.filip.managementapp.model.ImageFile;
+import com.filip.managementapp.model.ImageVariant;
+import com.filip.managementapp.model.ImageVariantSize;
+import com.filip.managementapp.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageFileRepositoryTest extends AbstractRepositoryTest {
+
+    @Autowired
+    private ImageFileRepository imageFileRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ImageVariantRepository imageVariantRepository;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        this.product = productRepository.saveAndFlush(new Product(
+                null,
+                "Product 123",
+                "Great product",
+                "Great product made in unknown country",
+                123L,
+                55.43,
+                true,
+                new ImageFile(null, "image.png", MediaType.IMAGE_PNG_VALUE, "0123456789".getBytes())
+        ));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void shouldFindImageMetadataByProductId() {
+        Optional<ImageFileMetadata> result = imageFileRepository.findImageMetadataByProductId(product.getId());
+
+        assertThat(result)
+                .isPresent()
+                .contains(new ImageFileMetadata(
+                        product.getProductImage().getId(),
+                        "image.png",
+                        MediaType.IMAGE_PNG_VALUE,
+                        10L
+                ));
+    }
+
+    @Test
+    void findImageMetadataByProductIdShouldReturnEmpty() {
+        assertThat(imageFileRepository.findImageMetadataByProductId(product.getId() + 1)).isEmpty();
+    }
+
+    @Test
+    void markVariantsProcessedShouldClaimImageOnlyOnce() {
+        Long imageId = product.getProductImage().getId();
+
+        int first = imageFileRepository.markVariantsProcessed(imageId);
+        int second = imageFileRepository.markVariantsProcessed(imageId);
+
+        assertThat(first).isOne();
+        assertThat(second).isZero();
+    }
+
+    @Test
+    void shouldCopyRequestedRangeOfImageData() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        imageFileRepository.copyImageData(product.getProductImage().getId(), 2, 5, outputStream);
+
+        assertThat(outputStream.toString()).isEqualTo("23456");
+    }
+
+    @Test
+    void shouldFindAndCopyImageVariantByProductId() throws IOException {
+        ImageVariant variant = imageVariantRepository.saveAndFlush(new ImageVariant(
+                null,
+                product.getProductImage(),
+                ImageVariantSize.THUMBNAIL,
+                MediaType.IMAGE_JPEG_VALUE,
+                32,
+                16,
+                "thumb".getBytes()
+        ));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        Optional<ImageFileMetadata> result =
+                imageFileRepository.findImageVariantMetadataByProductId(product.getId(), ImageVariantSize.THUMBNAIL);
+        imageFileRepository.copyImageVariantData(variant.getId(), 0, 5, outputStream);
+
+        assertThat(result)
+                .isPresent()
+                .contains(new ImageFileMetadata(
+                        variant.getId(),
+                        "image.png",
+                        MediaType.IMAGE_JPEG_VALUE,
+                        5L,
+                        ImageVariantSize.THUMBNAIL
+                ));
+        assertThat(imageFileRepository.findImageVariantMetadataByProductId(product.getId(), ImageVariantSize.DETAIL))
+                .isEmpty();
+        assertThat(outputStream.toString()).isEqualTo("thumb");
+    }
+
+    @Test
+    void shouldCountReferencesAndDeleteOnlyUnreferencedImage() {
+        ImageFile shared = new ImageFile(null, "shared.png", MediaType.IMAGE_PNG_VALUE, "shared".getBytes());
+        shared.setSha256("a".repeat(64));
+        Long imageId = imageFileRepository.saveAndFlush(shared).getId();
+
+        assertThat(imageFileRepository.incrementReferenceCount("a".repeat(64))).isEqualTo(1);
+        assertThat(imageFileRepository.incrementReferenceCount("b".repeat(64))).isZero();
+        assertThat(imageFileRepository.findIdBySha256("a".repeat(64))).contains(imageId);
+
+        imageFileRepository.decrementReferenceCount(imageId);
+        assertThat(imageFileRepository.deleteIfUnreferenced(imageId)).isZero();
+
+        imageFileRepository.decrementReferenceCount(imageId);
+        assertThat(imageFileRepository.deleteIfUnreferenced(imageId)).isEqualTo(1);
+        assertThat(imageFileRepository.findIdBySha256("a".repeat(64))).isEmpty();
+    }
+}
@@ -1,11 +1,25 @@
 package com.filip.managementapp.repository;
 
 import com.filip.managementapp.AbstractRepositoryTest;
+import com.filip.managementapp.dto.ProductCursor;
+import com.filip.managementapp.dto.ProductFilter;
+import com.filip.managementapp.dto.ProductRequest;
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.model.ImageFile;
 import com.filip.managementapp.model.Product;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -15,6 +29,9 @@ class ProductRepositoryTest extends AbstractRepositoryTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
     private final Product product;
 
     public ProductRepositoryTest() {
@@ -51,4 +68,224 @@ class ProductRepositoryTest extends AbstractRepositoryTest {
 
         assertFalse(result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByIdShouldLoadNeitherImageNorImageData() {
+        Product productWithImage = productRepository.saveAndFlush(new Product(
+                null,
+                "Product with image",
+                "Short description",
+                "Description",
+                5L,
+                10.0,
+                false,
+                new ImageFile(null, "image.jpg", MediaType.IMAGE_JPEG_VALUE, "DATA".getBytes())
+        ));
+        entityManager.clear();
+
+        Product result = productRepository.findById(productWithImage.getId()).orElseThrow();
+
+        assertFalse(Hibernate.isInitialized(result.getProductImage()));
+        assertThat(result.getProductImage().getFilename()).isEqualTo("image.jpg");
+        assertFalse(Hibernate.isPropertyInitialized(result.getProductImage(), "data"));
+        assertThat(result.getProductImage().getData()).isEqualTo("DATA".getBytes());
+    }
+
+    @Test
+    void findAllProductSummariesShouldReturnSummariesWithImageId() {
+        Product productWithImage = productRepository.save(new Product(
+                null,
+                "Product with image",
+                "Short description",
+                "Description",
+                5L,
+                10.0,
+                false,
+                new ImageFile(null, "image.jpg", MediaType.IMAGE_JPEG_VALUE, "DATA".getBytes())
+        ));
+        Product productWithoutImage = productRepository.save(product);
+
+        List<ProductSummaryDto> result = productRepository.findAllProductSummaries(Sort.by(Sort.Direction.DESC, "isAvailable"));
+
+        assertThat(result)
+                .hasSize(2)
+                .containsExactly(
+                        new ProductSummaryDto(
+                                productWithoutImage.getId(),
+                                productWithoutImage.getName(),
+                                productWithoutImage.getShortDescription(),
+                                productWithoutImage.getDescription(),
+                                productWithoutImage.getQuantity(),
+                                productWithoutImage.getPrice(),
+                                productWithoutImage.getIsAvailable(),
+                                null,
+                                productWithoutImage.getVersion()
+                        ),
+                        new ProductSummaryDto(
+                                productWithImage.getId(),
+                                productWithImage.getName(),
+                                productWithImage.getShortDescription(),
+                                productWithImage.getDescription(),
+                                productWithImage.getQuantity(),
+                                productWithImage.getPrice(),
+                                productWithImage.getIsAvailable(),
+                                productWithImage.getProductImage().getId(),
+                                productWithImage.getVersion()
+                        )
+                );
+    }
+
+    @Test
+    void findProductSummariesShouldWalkCatalogInAvailabilityAndIdOrder() {
+        List<Product> savedProducts = productRepository.saveAll(List.of(
+                new Product(null, "Product A", "Short", "Description", 1L, 1.0, false),
+                new Product(null, "Product B", "Short", "Description", 1L, 1.0, true),
+                new Product(null, "Product C", "Short", "Description", 1L, 1.0, false),
+                new Product(null, "Product D", "Short", "Description", 1L, 1.0, true)
+        ));
+        List<Long> expectedOrder = List.of(
+                savedProducts.get(1).getId(),
+                savedProducts.get(3).getId(),
+                savedProducts.get(0).getId(),
+                savedProducts.get(2).getId()
+        );
+
+        List<ProductSummaryDto> firstPage = productRepository.findProductSummariesAfter(null, null, 3);
+        ProductSummaryDto last = firstPage.get(firstPage.size() - 1);
+        List<ProductSummaryDto> secondPage = productRepository.findProductSummariesAfter(
+                null, ProductCursor.of(last), 3
+        );
+
+        assertThat(firstPage).extracting(ProductSummaryDto::id).containsExactlyElementsOf(expectedOrder.subList(0, 3));
+        assertThat(secondPage).extracting(ProductSummaryDto::id).containsExactly(expectedOrder.get(3));
+    }
+
+    @Test
+    void findProductSummariesAfterShouldContinueWithinAvailabilityOfCursor() {
+        List<Product> savedProducts = productRepository.saveAll(List.of(
+                new Product(null, "Product A", "Short", "Description", 1L, 1.0, true),
+                new Product(null, "Product B", "Short", "Description", 1L, 1.0, false),
+                new Product(null, "Product C", "Short", "Description", 1L, 1.0, true),
+                new Product(null, "Product D", "Short", "Description", 1L, 1.0, false)
+        ));
+
+        List<ProductSummaryDto> availableTail = productRepository.findProductSummariesAfter(
+                null, new ProductCursor(true, savedProducts.get(0).getId()), 2
+        );
+        List<ProductSummaryDto> unavailableTail = productRepository.findProductSummariesAfter(
+                null, new ProductCursor(false, savedProducts.get(1).getId()), 5
+        );
+        List<ProductSummaryDto> filtered = productRepository.findProductSummariesAfter(
+                ProductSpecifications.matching(new ProductFilter(null, null, false, null, null)), null, 5
+        );
+
+        assertThat(availableTail).extracting(ProductSummaryDto::id)
+                .containsExactly(savedProducts.get(2).getId(), savedProducts.get(1).getId());
+        assertThat(unavailableTail).extracting(ProductSummaryDto::id).containsExactly(savedProducts.get(3).getId());
+        assertThat(filtered).extracting(ProductSummaryDto::id)
+                .containsExactly(savedProducts.get(1).getId(), savedProducts.get(3).getId());
+    }
+
+    @Test
+    void findProductSummariesShouldApplyFilter() {
+        List<Product> savedProducts = productRepository.saveAll(List.of(
+                new Product(null, "Gaming Mouse", "Short", "Description", 10L, 49.99, true),
+                new Product(null, "Office mouse 50%", "Short", "Description", 2L, 15.0, true),
+                new Product(null, "Gaming Keyboard", "Short", "Description", 10L, 89.99, true),
+                new Product(null, "Gaming Mousepad", "Short", "Description", 10L, 19.99, false)
+        ));
+
+        List<ProductSummaryDto> byNameAndPrice = productRepository.findProductSummaries(
+                ProductSpecifications.matching(new ProductFilter(20.0, 60.0, true, 5L, "MOUSE")),
+                Sort.by("id")
+        );
+        List<ProductSummaryDto> byEscapedName = productRepository.findProductSummaries(
+                ProductSpecifications.matching(new ProductFilter(null, null, null, null, "50%")),
+                Sort.by("id")
+        );
+
+        assertThat(byNameAndPrice).extracting(ProductSummaryDto::id).containsExactly(savedProducts.get(0).getId());
+        assertThat(byEscapedName).extracting(ProductSummaryDto::id).containsExactly(savedProducts.get(1).getId());
+    }
+
+    @Test
+    void insertProductsShouldStoreBatchAndFindExistingNames() {
+        productRepository.insertProducts(List.of(
+                new ProductRequest(null, "Imported 1", "Short", "Description", 1L, 2.5, true, null),
+                new ProductRequest(null, "Imported 2", "Short", "Description", 0L, 3.5, false, null)
+        ));
+
+        assertThat(productRepository.findAll())
+                .extracting(Product::getName, Product::getQuantity, Product::getIsAvailable)
+                .containsExactlyInAnyOrder(tuple("Imported 1", 1L, true), tuple("Imported 2", 0L, false));
+        assertThat(productRepository.findExistingNames(List.of("Imported 2", "Missing")))
+                .containsExactly("Imported 2");
+    }
+
+    @Test
+    void streamProductSummariesShouldVisitProductsInIdOrder() {
+        Product first = productRepository.save(product);
+        Product second = productRepository.save(new Product(
+                null, "Product 456", "Short", "Description", 0L, 1.0, false
+        ));
+        List<ProductSummaryDto> streamed = new ArrayList<>();
+
+        productRepository.streamProductSummaries(streamed::add);
+
+        assertThat(streamed).containsExactly(
+                new ProductSummaryDto(first.getId(), "Product 123", "Great product",
+                        "Great product made in unknown country", 123L, 55.43, true, null, first.getVersion()),
+                new ProductSummaryDto(second.getId(), "Product 456", "Short", "Description", 0L, 1.0, false, null, second.getVersion())
+        );
+    }
+
+    @Test
+    void reserveStockShouldDecrementOnlyWhenEnoughStockAndMarkSoldOutUnavailable() {
+        Product savedProduct = productRepository.save(product);
+
+        assertThat(productRepository.reserveStock(savedProduct.getId(), 124L)).isZero();
+        assertThat(productRepository.reserveStock(savedProduct.getId(), 100L)).isEqualTo(1);
+        assertThat(productRepository.findById(savedProduct.getId()))
+                .get()
+                .extracting(Product::getQuantity, Product::getIsAvailable)
+                .containsExactly(23L, true);
+
+        assertThat(productRepository.reserveStock(savedProduct.getId(), 23L)).isEqualTo(1);
+        assertThat(productRepository.findById(savedProduct.getId()))
+                .get()
+                .extracting(Product::getQuantity, Product::getIsAvailable)
+                .containsExactly(0L, false);
+    }
+
+    @Test
+    void releaseStockShouldIncrementAndMakeSoldOutProductAvailable() {
+        Product savedProduct = productRepository.save(new Product(
+                null, "Sold out", "Short", "Description", 0L, 1.0, false
+        ));
+
+        assertThat(productRepository.releaseStock(savedProduct.getId(), 2L)).isEqualTo(1);
+        assertThat(productRepository.releaseStock(savedProduct.getId() + 1, 2L)).isZero();
+        assertThat(productRepository.findById(savedProduct.getId()))
+                .get()
+                .extracting(Product::getQuantity, Product::getIsAvailable)
+                .containsExactly(2L, true);
+    }
+
+    @Test
+    void applyStockDeltaShouldStopAtZeroAndMakeRestockedProductAvailable() {
+        Product savedProduct = productRepository.save(product);
+
+        assertThat(productRepository.applyStockDelta(savedProduct.getId(), 100L)).isEqualTo(1);
+        assertThat(productRepository.applyStockDelta(savedProduct.getId(), 30L)).isEqualTo(1);
+        assertThat(productRepository.findById(savedProduct.getId()))
+                .get()
+                .extracting(Product::getQuantity, Product::getIsAvailable)
+                .containsExactly(0L, false);
+
+        assertThat(productRepository.applyStockDelta(savedProduct.getId(), -5L)).isEqualTo(1);
+        assertThat(productRepository.findById(savedProduct.getId()))
+                .get()
+                .extracting(Product::getQuantity, Product::getIsAvailable)
+                .containsExactly(5L, true);
+    }
+}
@@ -0,0 +1,85 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.exception.ApiBadRequestException;
+import com.filip.managementapp.model.ImageFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageUploadInspectorTest {
+
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+
+    private final ImageUploadInspector imageUploadInspector = new ImageUploadInspector(16);
+
+    @Test
+    void shouldDescribeUploadWithoutKeepingItsData() {
+        // given
+        MockMultipartFile upload = new MockMultipartFile("productImage", "image.jpg", MediaType.IMAGE_JPEG_VALUE, "DATA".getBytes());
+
+        // when
+        ImageFile image = imageUploadInspector.inspect(upload);
+
+        // then
+        assertThat(image.getFilename()).isEqualTo("image.jpg");
+        assertThat(image.getContentType()).isEqualTo(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        assertThat(image.getData()).isNull();
+        assertThat(image.getDataSize()).isEqualTo(4L);
+        assertThat(image.getSha256()).isEqualTo("c97c29c7a71b392b437ee03fd17f09bb10b75e879466fc0eb757b2c4a78ac938");
+        assertThat(image.getReferenceCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldTakeContentTypeFromFirstBytes() {
+        // given
+        MockMultipartFile upload = new MockMultipartFile("productImage", "image.jpg", MediaType.IMAGE_JPEG_VALUE, PNG_HEADER);
+
+        // when
+        ImageFile image = imageUploadInspector.inspect(upload);
+
+        // then
+        assertThat(image.getContentType()).isEqualTo(MediaType.IMAGE_PNG_VALUE);
+    }
+
+    @Test
+    void shouldNotTrustDeclaredContentTypeOfUnknownData() {
+        // given
+        MockMultipartFile upload = new MockMultipartFile("productImage", "image.html", MediaType.TEXT_HTML_VALUE,
+                "<svg onload=x>".getBytes());
+
+        // when
+        ImageFile image = imageUploadInspector.inspect(upload);
+
+        // then
+        assertThat(image.getContentType()).isEqualTo(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    }
+
+    @Test
+    void shouldRejectUploadThatGrowsPastLimitWhileReading() {
+        // given
+        MockMultipartFile upload = new MockMultipartFile("productImage", "image.jpg", MediaType.IMAGE_JPEG_VALUE, new byte[17]) {
+            @Override
+            public long getSize() {
+                return 1;
+            }
+        };
+
+        // when
+        // then
+        assertThatThrownBy(() -> imageUploadInspector.inspect(upload))
+                .isInstanceOf(ApiBadRequestException.class)
+                .hasMessage(String.format(ImageUploadInspector.IMAGE_TOO_LARGE_STRING, 16));
+    }
+
+    @Test
+    void sniffContentTypeShouldRecognizeImageSignatures() {
+        assertThat(ImageUploadInspector.sniffContentType(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0}))
+                .isEqualTo(MediaType.IMAGE_JPEG_VALUE);
+        assertThat(ImageUploadInspector.sniffContentType("GIF89a".getBytes())).isEqualTo(MediaType.IMAGE_GIF_VALUE);
+        assertThat(ImageUploadInspector.sniffContentType("RIFF\0\0\0\0WEBP".getBytes())).isEqualTo("image/webp");
+        assertThat(ImageUploadInspector.sniffContentType("DATA".getBytes())).isNull();
+    }
+}
@@ -0,0 +1,207 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.event.ProductChangedEvent;
+import com.filip.managementapp.model.ImageFile;
+import com.filip.managementapp.model.ImageVariant;
+import com.filip.managementapp.model.ImageVariantSize;
+import com.filip.managementapp.repository.ImageFileRepository;
+import com.filip.managementapp.repository.ImageVariantRepository;
+import com.filip.managementapp.storage.ImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImageVariantServiceTest {
+
+    private static final long MAX_DECODED_PIXELS = 500_000;
+
+    @Mock
+    private ImageFileRepository imageFileRepository;
+
+    @Mock
+    private ImageVariantRepository imageVariantRepository;
+
+    @Mock
+    private ImageStore imageStore;
+
+    private ImageVariantService imageVariantService;
+
+    @BeforeEach
+    void setUp() {
+        imageVariantService = new ImageVariantService(
+                imageFileRepository,
+                imageVariantRepository,
+                imageStore,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                MAX_DECODED_PIXELS
+        );
+    }
+
+    @Test
+    void shouldGenerateDownscaledVariants() throws IOException {
+        // given
+        ImageFile imageFile = new ImageFile(5L, "image.jpg", MediaType.IMAGE_JPEG_VALUE, encode(2000, 1000, "jpeg"));
+        given(imageFileRepository.markVariantsProcessed(5L)).willReturn(1);
+        given(imageVariantRepository.existsByImageId(5L)).willReturn(false);
+        given(imageFileRepository.findById(5L)).willReturn(Optional.of(imageFile));
+        given(imageStore.read(imageFile)).willReturn(imageFile.getData());
+        ArgumentCaptor<ImageVariant> captor = ArgumentCaptor.forClass(ImageVariant.class);
+
+        // when
+        imageVariantService.onProductChanged(ProductChangedEvent.created(summaryWithImage(5L)));
+
+        // then
+        verify(imageVariantRepository, times(2)).save(captor.capture());
+        List<ImageVariant> variants = captor.getAllValues();
+        assertThat(variants)
+                .extracting(ImageVariant::getSize, ImageVariant::getWidth, ImageVariant::getHeight, ImageVariant::getContentType)
+                .containsExactly(
+                        tuple(ImageVariantSize.DETAIL, 960, 480, MediaType.IMAGE_JPEG_VALUE),
+                        tuple(ImageVariantSize.THUMBNAIL, 320, 160, MediaType.IMAGE_JPEG_VALUE)
+                );
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(variants.get(1).getData()));
+        assertThat(thumbnail.getWidth()).isEqualTo(320);
+        assertThat(variants).allMatch(variant -> variant.getImage() == imageFile);
+    }
+
+    @Test
+    void shouldKeepTransparentImagesAsPng() throws IOException {
+        // given
+        ImageFile imageFile = new ImageFile(5L, "image.png", MediaType.IMAGE_PNG_VALUE, encode(500, 400, "png"));
+        given(imageFileRepository.markVariantsProcessed(5L)).willReturn(1);
+        given(imageVariantRepository.existsByImageId(5L)).willReturn(false);
+        given(imageFileRepository.findById(5L)).willReturn(Optional.of(imageFile));
+        given(imageStore.read(imageFile)).willReturn(imageFile.getData());
+        ArgumentCaptor<ImageVariant> captor = ArgumentCaptor.forClass(ImageVariant.class);
+
+        // when
+        imageVariantService.onProductChanged(ProductChangedEvent.created(summaryWithImage(5L)));
+
+        // then
+        verify(imageVariantRepository, times(1)).save(captor.capture());
+        assertThat(captor.getValue())
+                .extracting(ImageVariant::getSize, ImageVariant::getWidth, ImageVariant::getHeight, ImageVariant::getContentType)
+                .containsExactly(ImageVariantSize.THUMBNAIL, 320, 256, MediaType.IMAGE_PNG_VALUE);
+    }
+
+    @Test
+    void shouldSubsampleImagesAboveThePixelBudget() throws IOException {
+        // given
+        ImageFile imageFile = new ImageFile(5L, "image.jpg", MediaType.IMAGE_JPEG_VALUE, encode(2400, 1200, "jpeg"));
+        given(imageFileRepository.markVariantsProcessed(5L)).willReturn(1);
+        given(imageVariantRepository.existsByImageId(5L)).willReturn(false);
+        given(imageFileRepository.findById(5L)).willReturn(Optional.of(imageFile));
+        given(imageStore.read(imageFile)).willReturn(imageFile.getData());
+        ArgumentCaptor<ImageVariant> captor = ArgumentCaptor.forClass(ImageVariant.class);
+
+        // when
+        imageVariantService.onProductChanged(ProductChangedEvent.created(summaryWithImage(5L)));
+
+        // then
+        // every third pixel of every third row is decoded, which is already smaller than the detail variant
+        verify(imageVariantRepository, times(1)).save(captor.capture());
+        assertThat(captor.getValue())
+                .extracting(ImageVariant::getSize, ImageVariant::getWidth, ImageVariant::getHeight)
+                .containsExactly(ImageVariantSize.THUMBNAIL, 320, 160);
+    }
+
+    @Test
+    void processUnclaimedImagesShouldClaimEachImageAndContinueAfterFailures() {
+        // given
+        given(imageFileRepository.findIdsWithoutProcessedVariants(0L, PageRequest.of(0, 100))).willReturn(List.of(5L, 7L));
+        given(imageFileRepository.markVariantsProcessed(5L)).willThrow(new IllegalStateException("locked"));
+        given(imageFileRepository.markVariantsProcessed(7L)).willReturn(1);
+        given(imageVariantRepository.existsByImageId(7L)).willReturn(false);
+        given(imageFileRepository.findById(7L)).willReturn(Optional.empty());
+
+        // when
+        imageVariantService.processUnclaimedImages();
+
+        // then
+        verify(imageFileRepository, times(1)).markVariantsProcessed(7L);
+        verify(imageFileRepository, times(1)).findById(7L);
+        verify(imageFileRepository, times(1)).findIdsWithoutProcessedVariants(any(), any());
+    }
+
+    @Test
+    void shouldSkipImagesThatWereAlreadyProcessed() {
+        // given
+        given(imageFileRepository.markVariantsProcessed(5L)).willReturn(0);
+
+        // when
+        imageVariantService.onProductChanged(ProductChangedEvent.updated(summaryWithImage(5L), 3L));
+
+        // then
+        verify(imageFileRepository, never()).findById(any());
+        verifyNoInteractions(imageVariantRepository, imageStore);
+    }
+
+    @Test
+    void shouldIgnoreChangesThatKeepTheImage() {
+        // when
+        imageVariantService.onProductChanged(ProductChangedEvent.updated(summaryWithImage(5L)));
+        imageVariantService.onProductChanged(ProductChangedEvent.updated(summaryWithImage(5L), 5L));
+
+        // then
+        verifyNoInteractions(imageFileRepository, imageVariantRepository, imageStore);
+    }
+
+    @Test
+    void shouldIgnoreUndecodableImages() throws IOException {
+        // given
+        ImageFile imageFile = new ImageFile(5L, "image.webp", "image/webp", "DATA".getBytes());
+        given(imageFileRepository.markVariantsProcessed(5L)).willReturn(1);
+        given(imageVariantRepository.existsByImageId(5L)).willReturn(false);
+        given(imageFileRepository.findById(5L)).willReturn(Optional.of(imageFile));
+        given(imageStore.read(imageFile)).willReturn(imageFile.getData());
+
+        // when
+        imageVariantService.onProductChanged(ProductChangedEvent.created(summaryWithImage(5L)));
+
+        // then
+        verify(imageVariantRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldIgnoreDeletedProducts() {
+        // when
+        imageVariantService.onProductChanged(ProductChangedEvent.deleted(1L));
+
+        // then
+        verifyNoInteractions(imageFileRepository, imageVariantRepository);
+    }
+
+    private ProductSummaryDto summaryWithImage(Long imageId) {
+        return new ProductSummaryDto(1L, "Monitor", "short", "description", 5L, 10.0, true, imageId, null);
+    }
+
+    private byte[] encode(int width, int height, String format) throws IOException {
+        int type = format.equals("png") ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, type), format, outputStream);
+        return outputStream.toByteArray();
+    }
+}
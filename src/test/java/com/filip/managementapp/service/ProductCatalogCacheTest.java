@@ -0,0 +1,252 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.dto.ProductFacets;
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.event.ProductChangedEvent;
+import com.filip.managementapp.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogCacheTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductCatalogCache productCatalogCache;
+
+    private final ProductSummaryDto available =
+            new ProductSummaryDto(2L, "Pencil", "short", "description", 5L, 1.5, true, null, null);
+    private final ProductSummaryDto unavailable =
+            new ProductSummaryDto(1L, "Pen", "short", "description", 0L, 2.0, false, null, null);
+
+    @Test
+    void shouldLoadCatalogOnceAndSortAvailableFirst() {
+        // given
+        given(productRepository.findAllProductSummaries(any(Sort.class))).willReturn(List.of(unavailable, available));
+
+        // when
+        ProductCatalog first = productCatalogCache.getCatalog();
+        ProductCatalog second = productCatalogCache.getCatalog();
+
+        // then
+        assertThat(first).isSameAs(second);
+        assertThat(first.products()).containsExactly(available, unavailable);
+        verify(productRepository, times(1)).findAllProductSummaries(any(Sort.class));
+    }
+
+    @Test
+    void shouldPatchLoadedCatalogOnProductChange() {
+        // given
+        given(productRepository.findAllProductSummaries(any(Sort.class))).willReturn(List.of(available));
+        productCatalogCache.getCatalog();
+        ProductSummaryDto updated =
+                new ProductSummaryDto(2L, "Pencil", "short", "description", 0L, 1.5, false, null, null);
+
+        // when
+        productCatalogCache.onProductChanged(ProductChangedEvent.created(unavailable));
+        productCatalogCache.onProductChanged(ProductChangedEvent.updated(updated));
+        productCatalogCache.onProductChanged(ProductChangedEvent.deleted(1L));
+
+        // then
+        assertThat(productCatalogCache.getCatalog().products()).containsExactly(updated);
+        verify(productRepository, times(1)).findAllProductSummaries(any(Sort.class));
+    }
+
+    @Test
+    void shouldIgnoreChangeOlderThanStoredProduct() {
+        // given
+        given(productRepository.findAllProductSummaries(any(Sort.class))).willReturn(List.of(withVersion(available, 3L)));
+        productCatalogCache.getCatalog();
+        long versionBefore = productCatalogCache.getVersion();
+
+        // when
+        productCatalogCache.onProductChanged(ProductChangedEvent.updated(withVersion(available, 2L)));
+        productCatalogCache.onProductChanged(ProductChangedEvent.updated(withVersion(available, 3L)));
+
+        // then
+        assertThat(productCatalogCache.getCatalog().findById(2L)).get().extracting(ProductSummaryDto::version).isEqualTo(3L);
+        assertThat(productCatalogCache.getVersion()).isEqualTo(versionBefore);
+    }
+
+    @Test
+    void shouldNotBringBackDeletedProductOnLateUpdate() {
+        // given
+        given(productRepository.findAllProductSummaries(any(Sort.class))).willReturn(List.of(withVersion(available, 3L)));
+        productCatalogCache.getCatalog();
+
+        // when
+        productCatalogCache.onProductChanged(ProductChangedEvent.deleted(2L));
+        productCatalogCache.onProductChanged(ProductChangedEvent.updated(withVersion(available, 4L)));
+        productCatalogCache.evict();
+        given(productRepository.findAllProductSummaries(any(Sort.class))).willReturn(List.of());
+        productCatalogCache.getCatalog();
+        productCatalogCache.onProductChanged(ProductChangedEvent.updated(withVersion(available, 5L)));
+
+        // then
+        assertThat(productCatalogCache.getCatalog().products()).isEmpty();
+    }
+
+    @Test
+    void shouldKeepNewestVersionWhenChangesArriveConcurrentlyOutOfOrder() throws Exception {
+        // given
+        given(productRepository.findAllProductSummaries(any(Sort.class))).willReturn(List.of(withVersion(available, 0L)));
+        productCatalogCache.getCatalog();
+        List<Long> versions = new ArrayList<>();
+        for (long version = 1; version <= 1000; version++) {
+            versions.add(version);
+        }
+        Collections.shuffle(versions, new Random(7));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Void>> deliveries = new ArrayList<>();
+        for (Long version : versions) {
+            deliveries.add(() -> {
+                productCatalogCache.onProductChanged(ProductChangedEvent.updated(withVersion(available, version)));
+                return null;
+            });
+        }
+
+        // when
+        try {
+            for (Future<Void> delivery : executor.invokeAll(deliveries)) {
+                delivery.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // then
+        assertThat(productCatalogCache.getCatalog().findById(2L)).get().extracting(ProductSummaryDto::version).isEqualTo(1000L);
+    }
+
+    @Test
+    void shouldKeepCatalogOrderWhenRandomChangesMoveProductsBetweenAvailabilities() {
+        // given
+        Random random = new Random(11);
+        List<ProductSummaryDto> loaded = new ArrayList<>();
+        for (long id = 1; id <= 200; id += 2) {
+            loaded.add(new ProductSummaryDto(id, "Product " + id, "short", "description", 1L, 1.0, random.nextBoolean(), null, 0L));
+        }
+        given(productRepository.findAllProductSummaries(any(Sort.class))).willReturn(loaded);
+        Map<Long, ProductSummaryDto> expected = new HashMap<>();
+        loaded.forEach(product -> expected.put(product.id(), product));
+        productCatalogCache.getCatalog();
+
+        // when
+        for (int change = 0; change < 2000; change++) {
+            long id = 1 + random.nextInt(220);
+            ProductSummaryDto current = expected.get(id);
+            if (random.nextInt(20) == 0) {
+                productCatalogCache.onProductChanged(ProductChangedEvent.deleted(id));
+                expected.remove(id);
+            } else if (current != null) {
+                ProductSummaryDto product = new ProductSummaryDto(
+                        id, "Product " + id, "short", "description", 1L, 1.0, random.nextBoolean(), null, current.version() + 1
+                );
+                productCatalogCache.onProductChanged(ProductChangedEvent.updated(product));
+                expected.put(id, product);
+            } else if (id % 2 == 0 && !expected.containsKey(id + 1000)) {
+                ProductSummaryDto product = new ProductSummaryDto(
+                        id + 1000, "Product " + id, "short", "description", 1L, 1.0, random.nextBoolean(), null, 0L
+                );
+                productCatalogCache.onProductChanged(ProductChangedEvent.created(product));
+                expected.put(product.id(), product);
+            }
+        }
+
+        // then
+        ProductCatalog catalog = productCatalogCache.getCatalog();
+        assertThat(catalog.products()).containsExactlyElementsOf(
+                ProductCatalog.of(expected.values()).products()
+        );
+        expected.values().forEach(product -> assertThat(catalog.findById(product.id())).contains(product));
+    }
+
+    @Test
+    void shouldKeepFacetCountsInStepWithProductChanges() {
+        // given
+        given(productRepository.findAllProductSummaries(any(Sort.class))).willReturn(List.of(available, unavailable));
+        ProductSummaryDto expensive =
+                new ProductSummaryDto(3L, "Fountain pen", "short", "description", 2L, 1000.0, true, null, null);
+
+        // when
+        ProductFacets loaded = productCatalogCache.getCatalog().facetCounts().toFacets();
+        productCatalogCache.onProductChanged(ProductChangedEvent.created(expensive));
+        productCatalogCache.onProductChanged(ProductChangedEvent.deleted(1L));
+        ProductFacets patched = productCatalogCache.getCatalog().facetCounts().toFacets();
+
+        // then
+        assertThat(loaded.price().get(0)).isEqualTo(new ProductFacets.PriceBucket(0, 25.0, 2));
+        assertThat(loaded).extracting(ProductFacets::available, ProductFacets::unavailable,
+                ProductFacets::inStock, ProductFacets::outOfStock).containsExactly(1L, 1L, 1L, 1L);
+        assertThat(patched.price()).extracting(ProductFacets.PriceBucket::count)
+                .containsExactly(1L, 0L, 0L, 0L, 0L, 0L, 1L);
+        assertThat(patched.price().get(6)).isEqualTo(new ProductFacets.PriceBucket(1000, null, 1));
+        assertThat(patched).extracting(ProductFacets::available, ProductFacets::unavailable,
+                ProductFacets::inStock, ProductFacets::outOfStock).containsExactly(2L, 0L, 2L, 0L);
+    }
+
+    @Test
+    void shouldIgnoreProductChangeWhenCatalogIsNotLoaded() {
+        // when
+        productCatalogCache.onProductChanged(ProductChangedEvent.created(available));
+
+        // then
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void shouldReloadCatalogAfterEvict() {
+        // given
+        given(productRepository.findAllProductSummaries(any(Sort.class))).willReturn(List.of(available));
+        productCatalogCache.getCatalog();
+
+        // when
+        productCatalogCache.evict();
+        productCatalogCache.getCatalog();
+
+        // then
+        verify(productRepository, times(2)).findAllProductSummaries(any(Sort.class));
+    }
+
+    @Test
+    void shouldBumpVersionOnProductChangeAndEvict() {
+        // given
+        long initialVersion = productCatalogCache.getVersion();
+
+        // when
+        productCatalogCache.onProductChanged(ProductChangedEvent.deleted(1L));
+        long versionAfterChange = productCatalogCache.getVersion();
+        productCatalogCache.evict();
+
+        // then
+        assertThat(versionAfterChange).isGreaterThan(initialVersion);
+        assertThat(productCatalogCache.getVersion()).isGreaterThan(versionAfterChange);
+    }
+
+    private static ProductSummaryDto withVersion(ProductSummaryDto product, Long version) {
+        return new ProductSummaryDto(product.id(), product.name(), product.shortDescription(), product.description(),
+                product.quantity(), product.price(), product.isAvailable(), product.imageId(), version);
+    }
+}
@@ -0,0 +1,92 @@
+package com.filip.managementapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.exception.ApiBadRequestException;
+import com.filip.managementapp.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class ProductExportServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductExportService productExportService;
+
+    private final ProductSummaryDto monitor = new ProductSummaryDto(
+            1L, "LCD Monitor", "Screen, 27\"", "Great monitor\nfor the office", 5L, 199.5, true, 7L, 3L);
+    private final ProductSummaryDto cable = new ProductSummaryDto(
+            2L, "HDMI cable", "Cable", "Two meters long", 0L, 9.9, false, null, 0L);
+
+    @BeforeEach
+    void setUp() {
+        productExportService = new ProductExportService(productRepository, new ObjectMapper());
+    }
+
+    @Test
+    void shouldExportCsvWithEscapedValues() throws IOException {
+        // given
+        givenCatalog(monitor, cable);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        productExportService.exportProducts(ProductExportService.Format.CSV, outputStream);
+
+        // then
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                id,name,shortDescription,description,quantity,price,isAvailable,imageId,version
+                1,LCD Monitor,"Screen, 27\"\"\","Great monitor
+                for the office",5,199.5,true,7,3
+                2,HDMI cable,Cable,Two meters long,0,9.9,false,,0
+                """);
+    }
+
+    @Test
+    void shouldExportOneJsonObjectPerLine() throws IOException {
+        // given
+        givenCatalog(monitor, cable);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // when
+        productExportService.exportProducts(ProductExportService.Format.NDJSON, outputStream);
+
+        // then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], ProductSummaryDto.class)).isEqualTo(monitor);
+        assertThat(objectMapper.readValue(lines[1], ProductSummaryDto.class)).isEqualTo(cable);
+    }
+
+    @Test
+    void formatFromParameterShouldRejectUnknownFormat() {
+        assertThat(ProductExportService.Format.fromParameter("CSV")).isEqualTo(ProductExportService.Format.CSV);
+        assertThatThrownBy(() -> ProductExportService.Format.fromParameter("xml"))
+                .isInstanceOf(ApiBadRequestException.class)
+                .hasMessage(String.format(ProductExportService.INVALID_EXPORT_FORMAT_STRING, "xml", "csv, ndjson"));
+    }
+
+    private void givenCatalog(ProductSummaryDto... products) {
+        doAnswer(invocation -> {
+            Consumer<ProductSummaryDto> consumer = invocation.getArgument(0);
+            Arrays.asList(products).forEach(consumer);
+            return null;
+        }).when(productRepository).streamProductSummaries(any());
+    }
+}
@@ -0,0 +1,267 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.dto.ImageFileMetadata;
+import com.filip.managementapp.exception.ResourceNotFoundException;
+import com.filip.managementapp.model.ImageFile;
+import com.filip.managementapp.model.ImageVariantSize;
+import com.filip.managementapp.repository.ImageFileRepository;
+import com.filip.managementapp.storage.ImageDataCache;
+import com.filip.managementapp.storage.ImageStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImageServiceTest {
+
+    @Mock
+    private ImageFileRepository imageFileRepository;
+
+    @Mock
+    private ImageStore imageStore;
+
+    @Spy
+    private ImageDataCache imageDataCache = new ImageDataCache(new SimpleMeterRegistry(), 1024, 512);
+
+    @Spy
+    private ImageUploadInspector imageUploadInspector = new ImageUploadInspector(1024);
+
+    private static final String SHA256_OF_DATA = "c97c29c7a71b392b437ee03fd17f09bb10b75e879466fc0eb757b2c4a78ac938";
+
+    @InjectMocks
+    private ProductImageService productImageService;
+
+    @Test
+    void shouldFindProductImageMetadata() {
+        // given
+        Long productId = 1L;
+        ImageFileMetadata metadata = new ImageFileMetadata(5L, "image.jpg", MediaType.IMAGE_JPEG_VALUE, 4L);
+        given(imageFileRepository.findImageMetadataByProductId(productId)).willReturn(Optional.of(metadata));
+
+        // when
+        ImageFileMetadata result = productImageService.findProductImageMetadata(productId);
+
+        // then
+        assertThat(result).isEqualTo(metadata);
+        verify(imageFileRepository, times(1)).findImageMetadataByProductId(productId);
+    }
+
+    @Test
+    void findProductImageMetadataShouldThrowResourceNotFoundException() {
+        // given
+        Long productId = 1L;
+        given(imageFileRepository.findImageMetadataByProductId(productId)).willReturn(Optional.empty());
+
+        // when
+        // then
+        assertThatThrownBy(() -> productImageService.findProductImageMetadata(productId))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage(String.format(ProductImageService.PRODUCT_IMAGE_NOT_FOUND_STRING, productId));
+    }
+
+    @Test
+    void shouldFindProductImageVariantMetadata() {
+        // given
+        Long productId = 1L;
+        ImageFileMetadata variant =
+                new ImageFileMetadata(7L, "image.jpg", MediaType.IMAGE_JPEG_VALUE, 2L, ImageVariantSize.THUMBNAIL);
+        given(imageFileRepository.findImageVariantMetadataByProductId(productId, ImageVariantSize.THUMBNAIL))
+                .willReturn(Optional.of(variant));
+
+        // when
+        ImageFileMetadata result = productImageService.findProductImageMetadata(productId, ImageVariantSize.THUMBNAIL);
+
+        // then
+        assertThat(result).isEqualTo(variant);
+        verify(imageFileRepository, never()).findImageMetadataByProductId(any());
+    }
+
+    @Test
+    void findProductImageVariantMetadataShouldFallBackToOriginal() {
+        // given
+        Long productId = 1L;
+        ImageFileMetadata original = new ImageFileMetadata(5L, "image.jpg", MediaType.IMAGE_JPEG_VALUE, 4L);
+        given(imageFileRepository.findImageVariantMetadataByProductId(productId, ImageVariantSize.DETAIL))
+                .willReturn(Optional.empty());
+        given(imageFileRepository.findImageMetadataByProductId(productId)).willReturn(Optional.of(original));
+
+        // when
+        ImageFileMetadata result = productImageService.findProductImageMetadata(productId, ImageVariantSize.DETAIL);
+
+        // then
+        assertThat(result).isEqualTo(original);
+    }
+
+    @Test
+    void shouldWriteImageData() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageFileMetadata image = new ImageFileMetadata(5L, "image.jpg", MediaType.IMAGE_JPEG_VALUE, 20L);
+
+        // when
+        productImageService.writeImageData(image, 2L, 10L, outputStream);
+
+        // then
+        verify(imageStore, times(1)).copy(5L, 2L, 10L, outputStream);
+        verify(imageFileRepository, never()).copyImageVariantData(anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void shouldWriteImageVariantData() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageFileMetadata variant =
+                new ImageFileMetadata(7L, "image.jpg", MediaType.IMAGE_JPEG_VALUE, 20L, ImageVariantSize.THUMBNAIL);
+
+        // when
+        productImageService.writeImageData(variant, 0L, 20L, outputStream);
+
+        // then
+        verify(imageFileRepository, times(1)).copyImageVariantData(eq(7L), eq(0L), eq(20L), any());
+        verifyNoInteractions(imageStore);
+    }
+
+    @Test
+    void writeImageDataShouldServeRepeatedFullReadsFromCache() throws IOException {
+        // given
+        ImageFileMetadata image = new ImageFileMetadata(5L, "image.jpg", MediaType.IMAGE_JPEG_VALUE, 4L);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(3).write("DATA".getBytes());
+            return null;
+        }).when(imageStore).copy(eq(5L), eq(0L), eq(4L), any());
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+        // when
+        productImageService.writeImageData(image, 0L, 4L, first);
+        productImageService.writeImageData(image, 0L, 4L, second);
+
+        // then
+        assertThat(first.toString()).isEqualTo("DATA");
+        assertThat(second.toString()).isEqualTo("DATA");
+        verify(imageStore, times(1)).copy(eq(5L), eq(0L), eq(4L), any());
+    }
+
+    @Test
+    void writeImageDataShouldNotTouchRepositoryForEmptyRange() throws IOException {
+        // when
+        productImageService.writeImageData(
+                new ImageFileMetadata(5L, "image.jpg", MediaType.IMAGE_JPEG_VALUE, 0L), 0L, 0L, new ByteArrayOutputStream()
+        );
+
+        // then
+        verifyNoInteractions(imageStore);
+        verify(imageFileRepository, never()).copyImageVariantData(anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void acquireImageShouldReuseImageWithSameContent() {
+        // given
+        MockMultipartFile upload = new MockMultipartFile("productImage", "copy.jpg", MediaType.IMAGE_JPEG_VALUE, "DATA".getBytes());
+        ImageFile stored = new ImageFile(5L, "image.jpg", MediaType.IMAGE_JPEG_VALUE, "DATA".getBytes());
+        given(imageFileRepository.incrementReferenceCount(SHA256_OF_DATA)).willReturn(1);
+        given(imageFileRepository.findIdBySha256(SHA256_OF_DATA)).willReturn(Optional.of(5L));
+        given(imageFileRepository.getReferenceById(5L)).willReturn(stored);
+
+        // when
+        ImageFile result = productImageService.acquireImage(upload);
+
+        // then
+        assertThat(result).isSameAs(stored);
+        verifyNoInteractions(imageStore);
+    }
+
+    @Test
+    void acquireImageShouldStoreNewContent() {
+        // given
+        MockMultipartFile upload = new MockMultipartFile("productImage", "image.jpg", MediaType.IMAGE_JPEG_VALUE, "DATA".getBytes());
+        ImageFile inserted = new ImageFile(5L, "image.jpg", MediaType.IMAGE_JPEG_VALUE, null);
+        given(imageFileRepository.incrementReferenceCount(SHA256_OF_DATA)).willReturn(0);
+        given(imageFileRepository.insertIfAbsent("image.jpg", MediaType.APPLICATION_OCTET_STREAM_VALUE, 4L, SHA256_OF_DATA))
+                .willReturn(Optional.of(5L));
+        given(imageFileRepository.getReferenceById(5L)).willReturn(inserted);
+        doAnswer(invocation -> {
+            ImageFile image = invocation.getArgument(0);
+            InputStream data = invocation.getArgument(1);
+            assertThat(image.getId()).isEqualTo(5L);
+            assertThat(image.getData()).isNull();
+            assertThat(data).hasContent("DATA");
+            return null;
+        }).when(imageStore).store(any(), any());
+
+        // when
+        ImageFile result = productImageService.acquireImage(upload);
+
+        // then
+        assertThat(result).isSameAs(inserted);
+        verify(imageStore, times(1)).store(any(), any());
+        verify(imageFileRepository, never()).findIdBySha256(any());
+    }
+
+    @Test
+    void acquireImageShouldReferenceImageInsertedByConcurrentUpload() {
+        // given
+        MockMultipartFile upload = new MockMultipartFile("productImage", "image.jpg", MediaType.IMAGE_JPEG_VALUE, "DATA".getBytes());
+        ImageFile stored = new ImageFile(5L, "image.jpg", MediaType.IMAGE_JPEG_VALUE, null);
+        given(imageFileRepository.incrementReferenceCount(SHA256_OF_DATA)).willReturn(0, 1);
+        given(imageFileRepository.insertIfAbsent(any(), any(), any(), any())).willReturn(Optional.empty());
+        given(imageFileRepository.findIdBySha256(SHA256_OF_DATA)).willReturn(Optional.of(5L));
+        given(imageFileRepository.getReferenceById(5L)).willReturn(stored);
+
+        // when
+        ImageFile result = productImageService.acquireImage(upload);
+
+        // then
+        assertThat(result).isSameAs(stored);
+        verify(imageFileRepository, times(2)).incrementReferenceCount(SHA256_OF_DATA);
+        verifyNoInteractions(imageStore);
+    }
+
+    @Test
+    void releaseImageShouldDecrementAndDeleteUnreferencedImage() {
+        // given
+        given(imageFileRepository.deleteIfUnreferenced(5L)).willReturn(1);
+
+        // when
+        productImageService.releaseImage(5L);
+
+        // then
+        InOrder inOrder = inOrder(imageFileRepository, imageStore);
+        inOrder.verify(imageFileRepository).decrementReferenceCount(5L);
+        inOrder.verify(imageFileRepository).deleteIfUnreferenced(5L);
+        inOrder.verify(imageStore).delete(5L);
+        verify(imageDataCache, times(1)).evict(5L);
+    }
+
+    @Test
+    void releaseImageShouldKeepDataOfStillReferencedImage() {
+        // given
+        given(imageFileRepository.deleteIfUnreferenced(5L)).willReturn(0);
+
+        // when
+        productImageService.releaseImage(5L);
+
+        // then
+        verify(imageFileRepository, times(1)).decrementReferenceCount(5L);
+        verifyNoInteractions(imageStore);
+    }
+}
@@ -0,0 +1,133 @@
+package com.filip.managementapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.filip.managementapp.dto.ProductImportReport;
+import com.filip.managementapp.dto.ProductRequest;
+import com.filip.managementapp.event.ProductsImportedEvent;
+import com.filip.managementapp.exception.ApiBadRequestException;
+import com.filip.managementapp.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ProductImportService productImportService;
+
+    @BeforeEach
+    void setUp() {
+        productImportService = new ProductImportService(
+                productRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper(),
+                new TransactionTemplate(transactionManager),
+                eventPublisher,
+                2
+        );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldImportCsvInChunksAndReportInvalidRows() throws IOException {
+        // given
+        String csv = """
+                name,shortDescription,description,quantity,price,isAvailable
+                Monitor,Screen,"Large screen, 27""\",3,199.5,true
+                Keyboard,Keys,"Mechanical
+                keyboard",10,49.9,TRUE
+                Mouse,Pointer,Wireless mouse,many,9.9,true
+                Cable,Wire,HDMI cable,5,-1,false
+                Monitor,Screen,Duplicate,1,1,true
+                Existing,Old,Already stored,1,1,true
+                """;
+        given(productRepository.findExistingNames(anyCollection())).willReturn(Set.of(), Set.of("Existing"));
+
+        // when
+        ProductImportReport report = productImportService.importProducts(bytes(csv), ProductImportService.TEXT_CSV);
+
+        // then
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(4);
+        assertThat(report.errors()).containsExactly(
+                new ProductImportReport.RowError(5, "Invalid value 'many' for column quantity"),
+                new ProductImportReport.RowError(6, "Minimum price of product is 0.0!"),
+                new ProductImportReport.RowError(7, String.format(ProductImportService.DUPLICATE_IMPORT_NAME_STRING, "Monitor")),
+                new ProductImportReport.RowError(8, String.format(ProductService.PRODUCT_WITH_GIVEN_NAME_EXISTS_STRING, "Existing"))
+        );
+
+        ArgumentCaptor<List<ProductRequest>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(productRepository, times(2)).insertProducts(inserted.capture());
+        assertThat(inserted.getAllValues().get(0))
+                .extracting(ProductRequest::description)
+                .containsExactly("Large screen, 27\"", "Mechanical\nkeyboard");
+        assertThat(inserted.getAllValues().get(1)).isEmpty();
+        verify(eventPublisher).publishEvent(new ProductsImportedEvent(2));
+    }
+
+    @Test
+    void shouldImportNdjsonAndReportMalformedLines() throws IOException {
+        // given
+        String ndjson = """
+                {"name":"Monitor","shortDescription":"Screen","description":"Large","quantity":3,"price":199.5,"isAvailable":true}
+
+                {"name":"Keyboard",
+                {"name":"Mouse","shortDescription":"Pointer","description":"Wireless","quantity":1,"price":9.9}
+                """;
+        given(productRepository.findExistingNames(anyCollection())).willReturn(Set.of());
+
+        // when
+        ProductImportReport report = productImportService.importProducts(
+                bytes(ndjson), ProductImportService.APPLICATION_NDJSON
+        );
+
+        // then
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.errors()).extracting(ProductImportReport.RowError::row).containsExactly(3L, 4L);
+        assertThat(report.errors().get(1).message()).isEqualTo("Product availability is required");
+        verify(productRepository).insertProducts(argThat(products -> products.size() == 1));
+    }
+
+    @Test
+    void shouldRejectCsvWithoutRequiredColumns() {
+        assertThatThrownBy(() -> productImportService.importProducts(
+                bytes("name,price\nMonitor,1\n"), ProductImportService.TEXT_CSV
+        ))
+                .isInstanceOf(ApiBadRequestException.class)
+                .hasMessage(String.format(ProductImportReader.MISSING_CSV_COLUMNS_STRING,
+                        List.of("shortDescription", "description", "quantity", "isAvailable")));
+        verifyNoInteractions(productRepository, eventPublisher);
+    }
+
+    private static ByteArrayInputStream bytes(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,91 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.dto.ProductSuggestion;
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.event.ProductChangedEvent;
+import com.filip.managementapp.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class ProductNameSuggesterTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductNameSuggester productNameSuggester;
+
+    @BeforeEach
+    void setUp() {
+        productNameSuggester = new ProductNameSuggester(productRepository);
+        given(productRepository.findAllProductSummaries(any(Sort.class))).willReturn(List.of(
+                summary(1L, "LCD Monitor"),
+                summary(2L, "LED Display"),
+                summary(3L, "lcd monitor arm"),
+                summary(4L, "Keyboard")
+        ));
+        productNameSuggester.rebuild();
+    }
+
+    @Test
+    void shouldSuggestNamesCaseInsensitivelyInAlphabeticalOrder() {
+        assertThat(productNameSuggester.suggest("L", 10)).containsExactly(
+                new ProductSuggestion(1L, "LCD Monitor"),
+                new ProductSuggestion(3L, "lcd monitor arm"),
+                new ProductSuggestion(2L, "LED Display")
+        );
+    }
+
+    @Test
+    void shouldRespectLimit() {
+        assertThat(productNameSuggester.suggest("lcd", 1)).containsExactly(new ProductSuggestion(1L, "LCD Monitor"));
+    }
+
+    @Test
+    void shouldReturnEmptyListForUnknownPrefix() {
+        assertThat(productNameSuggester.suggest("mouse", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldApplyProductChangesIncrementally() {
+        productNameSuggester.onProductChanged(ProductChangedEvent.created(summary(5L, "Mouse")));
+        productNameSuggester.onProductChanged(ProductChangedEvent.updated(summary(1L, "Monitor stand")));
+        productNameSuggester.onProductChanged(ProductChangedEvent.deleted(4L));
+
+        assertThat(productNameSuggester.suggest("lcd", 10)).containsExactly(new ProductSuggestion(3L, "lcd monitor arm"));
+        assertThat(productNameSuggester.suggest("mo", 10)).containsExactly(
+                new ProductSuggestion(1L, "Monitor stand"),
+                new ProductSuggestion(5L, "Mouse")
+        );
+        assertThat(productNameSuggester.suggest("k", 10)).isEmpty();
+    }
+
+    @Test
+    void rebuildShouldKeepChangesDeliveredWhileReadingNames() {
+        given(productRepository.findAllProductSummaries(any(Sort.class))).willAnswer(invocation -> {
+            productNameSuggester.onProductChanged(ProductChangedEvent.created(summary(5L, "Mouse")));
+            productNameSuggester.onProductChanged(ProductChangedEvent.deleted(4L));
+            return List.of(summary(1L, "LCD Monitor"), summary(4L, "Keyboard"));
+        });
+
+        productNameSuggester.rebuild();
+
+        assertThat(productNameSuggester.suggest("mouse", 10)).containsExactly(new ProductSuggestion(5L, "Mouse"));
+        assertThat(productNameSuggester.suggest("k", 10)).isEmpty();
+        assertThat(productNameSuggester.suggest("l", 10)).containsExactly(new ProductSuggestion(1L, "LCD Monitor"));
+    }
+
+    private static ProductSummaryDto summary(Long id, String name) {
+        return new ProductSummaryDto(id, name, "short", "description", 1L, 1.0, true, null, null);
+    }
+}
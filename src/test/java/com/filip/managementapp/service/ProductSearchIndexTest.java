@@ -0,0 +1,81 @@
+package com.filip.managementapp.service;
+
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.event.ProductChangedEvent;
+import com.filip.managementapp.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSearchIndex productSearchIndex;
+
+    private final ProductSummaryDto monitor = new ProductSummaryDto(
+            1L, "LCD Monitor", "Modern LCD technology", "Great monitor for the office", 5L, 199.5, true, null, null);
+    private final ProductSummaryDto cable = new ProductSummaryDto(
+            2L, "HDMI cable", "Connects your monitor", "Two meters long cable", 50L, 9.9, true, null, null);
+
+    @BeforeEach
+    void setUp() {
+        productSearchIndex = new ProductSearchIndex(productRepository);
+        given(productRepository.findAllProductSummaries(any(Sort.class))).willReturn(List.of(cable, monitor));
+        productSearchIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        productSearchIndex.destroy();
+    }
+
+    @Test
+    void shouldRankNameMatchesFirst() {
+        assertThat(productSearchIndex.search("monitor", 10)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldRequireEveryTerm() {
+        assertThat(productSearchIndex.search("monitor cable", 10)).containsExactly(2L);
+        assertThat(productSearchIndex.search("monitor keyboard", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldSupportPrefixQueriesAndLimit() {
+        assertThat(productSearchIndex.search("mon*", 1)).containsExactly(1L);
+    }
+
+    @Test
+    void shouldApplyProductChangesIncrementally() {
+        ProductSummaryDto keyboard = new ProductSummaryDto(
+                3L, "Keyboard", "Mechanical", "Keyboard with monitor stand", 3L, 49.0, true, null, null);
+        ProductSummaryDto renamedMonitor = new ProductSummaryDto(
+                1L, "LED Display", "Modern LED technology", "Great display for the office", 5L, 199.5, true, null, null);
+
+        productSearchIndex.onProductChanged(ProductChangedEvent.created(keyboard));
+        productSearchIndex.onProductChanged(ProductChangedEvent.updated(renamedMonitor));
+        productSearchIndex.onProductChanged(ProductChangedEvent.deleted(2L));
+
+        assertThat(productSearchIndex.search("monitor", 10)).containsExactly(3L);
+        assertThat(productSearchIndex.search("display", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void shouldIgnoreQuerySyntaxErrors() {
+        assertThat(productSearchIndex.search("\"monitor (", 10)).containsExactly(1L, 2L);
+    }
+}
@@ -1,7 +1,19 @@
 package com.filip.managementapp.service;
 
-import com.filip.managementapp.dto.ProductDto;
+import com.filip.managementapp.dto.ProductBatch;
+import com.filip.managementapp.dto.ProductChanges;
+import com.filip.managementapp.dto.ProductCursor;
+import com.filip.managementapp.dto.ProductCursorPage;
+import com.filip.managementapp.dto.ProductFacets;
+import com.filip.managementapp.dto.ProductFilter;
+import com.filip.managementapp.dto.ProductPatchRequest;
 import com.filip.managementapp.dto.ProductRequest;
+import com.filip.managementapp.dto.ProductSuggestion;
+import com.filip.managementapp.dto.ProductSummaryDto;
+import com.filip.managementapp.event.ProductChangedEvent;
+import com.filip.managementapp.exception.ApiBadRequestException;
+import com.filip.managementapp.exception.ApiConflictException;
+import com.filip.managementapp.exception.ApiPreconditionFailedException;
 import com.filip.managementapp.exception.ResourceAlreadyExistsException;
 import com.filip.managementapp.exception.ResourceNotFoundException;
 import com.filip.managementapp.mapper.ImageFileMapperImpl;
@@ -10,16 +22,25 @@ import com.filip.managementapp.mapper.ProductMapperImpl;
 import com.filip.managementapp.model.ImageFile;
 import com.filip.managementapp.model.Product;
 import com.filip.managementapp.repository.ProductRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,6 +58,27 @@ class ProductServiceTest {
     @Spy
     private ProductMapper productMapper = new ProductMapperImpl(new ImageFileMapperImpl());
 
+    @Mock
+    private ProductImageService productImageService;
+
+    @Mock
+    private ProductCatalogCache productCatalogCache;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductNameSuggester productNameSuggester;
+
+    @Mock
+    private HotStockCounters hotStockCounters;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private ProductService productService;
 
@@ -75,91 +117,309 @@ class ProductServiceTest {
     @Test
     void shouldFindAllProducts() {
         // given
-        List<Product> products = new ArrayList<>(
+        List<ProductSummaryDto> productSummaries = new ArrayList<>(
                 List.of(
-                    this.product,
-                    new Product(
+                    productMapper.productToProductSummaryDto(this.product),
+                    new ProductSummaryDto(
                             2L,
                             "Product name 2",
                             "Short description",
                             "Description fsdkfiasd",
                             1234L,
                             531.50,
-                            true
+                            true,
+                            null,
+                            null
                     ),
-                    new Product(
+                    new ProductSummaryDto(
                             3L,
                             "Product name 3",
                             "Short description 3",
                             "Description fsdkfiasd 3",
                             5425231123L,
                             11.54,
-                            false
+                            false,
+                            null,
+                            null
                     )
                 )
         );
-        Sort isAvailableSort = Sort.by(Sort.Direction.DESC, "isAvailable");
-        given(productRepository.findAll(isAvailableSort)).willReturn(products);
+        given(productCatalogCache.getCatalog()).willReturn(ProductCatalog.of(productSummaries));
 
         // when
-        List<ProductDto> response = productService.findAllProducts();
+        List<ProductSummaryDto> response = productService.findAllProducts();
 
         // then
-        verify(productMapper, times(products.size())).productToProductDto(any());
         assertThat(response)
                 .isNotNull()
                 .isNotEmpty()
                 .hasSize(3)
-                .containsAll(products.stream().map(productMapper::productToProductDto).toList());
-        verify(productRepository, times(1)).findAll(isAvailableSort);
+                .containsExactly(productSummaries.get(0), productSummaries.get(1), productSummaries.get(2));
+        verify(productCatalogCache, times(1)).getCatalog();
+        verifyNoInteractions(productRepository);
     }
 
     @Test
     void findAllProductsShouldReturnEmptyArray() {
         // given
-        Sort isAvailableSort = Sort.by(Sort.Direction.DESC, "isAvailable");
-        given(productRepository.findAll(isAvailableSort)).willReturn(new ArrayList<>());
+        given(productCatalogCache.getCatalog()).willReturn(ProductCatalog.of(new ArrayList<>()));
 
         // when
-        List<ProductDto> response = productService.findAllProducts();
+        List<ProductSummaryDto> response = productService.findAllProducts();
 
         // then
         assertThat(response).isEmpty();
-        verify(productRepository, times(1)).findAll(isAvailableSort);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void findProductsPageShouldReturnFirstPageWithNextCursor() {
+        // given
+        ProductSummaryDto first = new ProductSummaryDto(1L, "Name 1", "Short", "Descr", 1L, 1.0, true, null, null);
+        ProductSummaryDto second = new ProductSummaryDto(2L, "Name 2", "Short", "Descr", 1L, 1.0, true, null, null);
+        ProductSummaryDto third = new ProductSummaryDto(3L, "Name 3", "Short", "Descr", 1L, 1.0, false, null, null);
+        given(productRepository.findProductSummariesAfter(any(), isNull(), eq(3)))
+                .willReturn(List.of(first, second, third));
+
+        // when
+        ProductCursorPage page = productService.findProductsPage(null, 2, ProductFilter.empty());
+
+        // then
+        assertThat(page.content()).containsExactly(first, second);
+        assertThat(page.nextCursor()).isEqualTo(new ProductCursor(true, 2L).encode());
+        verify(productRepository, times(1)).findProductSummariesAfter(any(), isNull(), eq(3));
+    }
+
+    @Test
+    void findProductsPageShouldReturnLastPageWithoutNextCursor() {
+        // given
+        ProductSummaryDto third = new ProductSummaryDto(3L, "Name 3", "Short", "Descr", 1L, 1.0, false, null, null);
+        String cursor = new ProductCursor(true, 2L).encode();
+        given(productRepository.findProductSummariesAfter(any(), eq(new ProductCursor(true, 2L)), eq(3)))
+                .willReturn(List.of(third));
+
+        // when
+        ProductCursorPage page = productService.findProductsPage(cursor, 2, ProductFilter.empty());
+
+        // then
+        assertThat(page.content()).containsExactly(third);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void findAllProductsWithFilterShouldQueryBySpecification() {
+        // given
+        ProductFilter filter = new ProductFilter(10.0, null, true, null, "lcd");
+        ProductSummaryDto summary = productMapper.productToProductSummaryDto(this.product);
+        given(productRepository.findProductSummaries(any(), eq(ProductService.CATALOG_SORT))).willReturn(List.of(summary));
+
+        // when
+        List<ProductSummaryDto> response = productService.findAllProducts(filter);
+
+        // then
+        assertThat(response).containsExactly(summary);
+        verify(productCatalogCache, never()).getCatalog();
+    }
+
+    @Test
+    void findAllProductsWithEmptyFilterShouldReturnWholeCatalog() {
+        // given
+        ProductSummaryDto summary = productMapper.productToProductSummaryDto(this.product);
+        given(productCatalogCache.getCatalog()).willReturn(ProductCatalog.of(List.of(summary)));
+
+        // when
+        List<ProductSummaryDto> response = productService.findAllProducts(ProductFilter.empty());
+
+        // then
+        assertThat(response).containsExactly(summary);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void findProductsPageShouldThrowApiBadRequestExceptionForInvalidCursor() {
+        assertThatThrownBy(() -> productService.findProductsPage("not-a-cursor", 2, ProductFilter.empty()))
+                .isInstanceOf(ApiBadRequestException.class)
+                .hasMessage(String.format(ProductCursor.INVALID_CURSOR_STRING, "not-a-cursor"));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void findProductsPageShouldThrowApiBadRequestExceptionForInvalidSize() {
+        assertThatThrownBy(() -> productService.findProductsPage(null, ProductService.MAX_PAGE_SIZE + 1, ProductFilter.empty()))
+                .isInstanceOf(ApiBadRequestException.class)
+                .hasMessage(String.format(ProductService.INVALID_PAGE_SIZE_STRING, ProductService.MAX_PAGE_SIZE));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void searchProductsShouldResolveMatchesFromCatalogInIndexOrder() {
+        // given
+        ProductSummaryDto first = new ProductSummaryDto(7L, "Monitor", "short", "description", 1L, 1.0, true, null, null);
+        ProductSummaryDto second = productMapper.productToProductSummaryDto(product);
+        given(productCatalogCache.getCatalog()).willReturn(ProductCatalog.of(List.of(second, first)));
+        given(productSearchIndex.search("monitor", 20)).willReturn(List.of(7L, 99L, product.getId()));
+
+        // when
+        List<ProductSummaryDto> result = productService.searchProducts("monitor", 20);
+
+        // then
+        assertThat(result).containsExactly(first, second);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void searchProductsShouldThrowApiBadRequestExceptionForBlankQuery() {
+        assertThatThrownBy(() -> productService.searchProducts("  ", 20))
+                .isInstanceOf(ApiBadRequestException.class)
+                .hasMessage(ProductService.BLANK_SEARCH_QUERY_STRING);
+        verifyNoInteractions(productSearchIndex);
+    }
+
+    @Test
+    void suggestProductsShouldDelegateToSuggester() {
+        // given
+        List<ProductSuggestion> suggestions = List.of(new ProductSuggestion(1L, "LCD Monitor"));
+        given(productNameSuggester.suggest("lc", 5)).willReturn(suggestions);
+
+        // when
+        List<ProductSuggestion> result = productService.suggestProducts("lc", 5);
+
+        // then
+        assertThat(result).isEqualTo(suggestions);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void suggestProductsShouldReturnEmptyListForBlankPrefix() {
+        assertThat(productService.suggestProducts(" ", 5)).isEmpty();
+        verifyNoInteractions(productNameSuggester);
+    }
+
+    @Test
+    void suggestProductsShouldThrowApiBadRequestExceptionForInvalidLimit() {
+        assertThatThrownBy(() -> productService.suggestProducts("lc", ProductService.MAX_SUGGESTIONS + 1))
+                .isInstanceOf(ApiBadRequestException.class)
+                .hasMessage(String.format(ProductService.INVALID_SUGGESTION_LIMIT_STRING, ProductService.MAX_SUGGESTIONS));
+        verifyNoInteractions(productNameSuggester);
+    }
+
+    @Test
+    void shouldFindProductFacetsFromCatalog() {
+        // given
+        ProductSummaryDto summary = productMapper.productToProductSummaryDto(product);
+        given(productCatalogCache.getCatalog()).willReturn(ProductCatalog.of(List.of(summary)));
+
+        // when
+        ProductFacets facets = productService.findProductFacets();
+
+        // then
+        assertThat(facets.price()).extracting(ProductFacets.PriceBucket::count).containsOnlyOnce(1L);
+        assertThat(facets.available() + facets.unavailable()).isEqualTo(1L);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void shouldFindProductsByIdsInRequestedOrderFromCatalog() {
+        // given
+        ProductSummaryDto first = productMapper.productToProductSummaryDto(product);
+        ProductSummaryDto second = new ProductSummaryDto(
+                2L, "Name 2", "Short", "Description", 3L, 10.0, false, null, 0L
+        );
+        given(productCatalogCache.getCatalog()).willReturn(ProductCatalog.of(List.of(first, second)));
+
+        // when
+        ProductBatch batch = productService.findProductsByIds(List.of(2L, 99L, 1L, 2L));
+
+        // then
+        assertThat(batch.products()).containsExactly(second, first);
+        assertThat(batch.missingIds()).containsExactly(99L);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void findProductsByIdsShouldThrowApiBadRequestExceptionForTooManyIds() {
+        // given
+        List<Long> productIds = new ArrayList<>();
+        for (long id = 1; id <= ProductService.MAX_BATCH_SIZE + 1; id++) {
+            productIds.add(id);
+        }
+
+        // when
+        // then
+        assertThatThrownBy(() -> productService.findProductsByIds(productIds))
+                .isInstanceOf(ApiBadRequestException.class)
+                .hasMessage(String.format(ProductService.INVALID_BATCH_SIZE_STRING, ProductService.MAX_BATCH_SIZE));
+        verifyNoInteractions(productCatalogCache);
+    }
+
+    @Test
+    void findProductsByIdsShouldThrowApiBadRequestExceptionForEmptyId() {
+        // given
+        List<Long> productIds = Arrays.asList(1L, null, 2L);
+
+        // when
+        // then
+        assertThatThrownBy(() -> productService.findProductsByIds(productIds))
+                .isInstanceOf(ApiBadRequestException.class)
+                .hasMessage(ProductService.EMPTY_BATCH_ID_STRING);
+        verifyNoInteractions(productCatalogCache);
+    }
+
+    @Test
+    void shouldFindProductChangesSinceVersion() {
+        // given
+        ProductChanges changes = new ProductChanges(
+                List.of(productMapper.productToProductSummaryDto(product)), List.of(7L), 1234L
+        );
+        given(productRepository.findChangesSince(1200L)).willReturn(changes);
+
+        // when
+        ProductChanges result = productService.findProductChanges(1200L);
+
+        // then
+        assertThat(result).isEqualTo(changes);
+    }
+
+    @Test
+    void findProductChangesShouldThrowApiBadRequestExceptionForNegativeVersion() {
+        // given
+        // when
+        // then
+        assertThatThrownBy(() -> productService.findProductChanges(-1L))
+                .isInstanceOf(ApiBadRequestException.class)
+                .hasMessage(ProductService.INVALID_SYNC_VERSION_STRING);
+        verifyNoInteractions(productRepository);
     }
 
     @Test
     void shouldFindProductById() {
         // given
         Long productId = product.getId();
-        given(productRepository.findById(productId)).willReturn(Optional.of(product));
+        ProductSummaryDto summary = productMapper.productToProductSummaryDto(product);
+        given(productCatalogCache.getCatalog()).willReturn(ProductCatalog.of(List.of(summary)));
 
         // when
-        ProductDto productDto = productService.findProductById(productId);
+        ProductSummaryDto productSummary = productService.findProductById(productId);
 
         // then
-        verify(productMapper, times(1)).productToProductDto(product);
-        assertThat(productDto)
+        assertThat(productSummary)
                 .isNotNull()
-                .isEqualTo(productMapper.productToProductDto(product));
-        verify(productRepository, times(1)).findById(productId);
+                .isEqualTo(summary);
+        verifyNoInteractions(productRepository);
     }
 
     @Test
     void findProductByIdShouldThrowNotResourceFoundException() {
         // given
         Long productId = product.getId();
-        given(productRepository.findById(productId)).willReturn(Optional.empty());
+        given(productCatalogCache.getCatalog()).willReturn(ProductCatalog.of(List.of()));
 
         // when
-
+        // then
         assertThatThrownBy(() -> productService.findProductById(productId))
                 .isInstanceOf(ResourceNotFoundException.class)
                         .hasMessage(String.format(ProductService.PRODUCT_BY_ID_NOT_FOUND_STRING, productId));
-
-        // then
-        verify(productRepository, times(1)).findById(productId);
-        verify(productMapper, never()).productToProductDto(any());
+        verifyNoInteractions(productRepository);
     }
 
     @Test
@@ -170,33 +430,73 @@ class ProductServiceTest {
         Product expectedEntity = productMapper.productRequestToProduct(productRequest);
         expectedEntity.setId(1L);
 
-        given(productRepository.existsByName(productRequest.name())).willReturn(false);
-        given(productRepository.save(mappedEntity)).willReturn(expectedEntity);
+        given(productRepository.saveAndFlush(mappedEntity)).willReturn(expectedEntity);
 
         // when
-        ProductDto savedProductDto = productService.saveProduct(productRequest);
+        ProductSummaryDto savedProduct = productService.saveProduct(productRequest);
 
         // then
-        assertThat(savedProductDto)
+        assertThat(savedProduct)
                 .isNotNull()
-                .isEqualTo(productMapper.productToProductDto(expectedEntity));
-        verify(productRepository, times(1)).existsByName(productRequest.name());
-        verify(productRepository, times(1)).save(mappedEntity);
+                .isEqualTo(productMapper.productToProductSummaryDto(expectedEntity));
+        verify(productRepository, never()).existsByName(any());
+        verify(productRepository, times(1)).saveAndFlush(mappedEntity);
+        verify(eventPublisher, times(1))
+                .publishEvent(ProductChangedEvent.created(productMapper.productToProductSummaryDto(expectedEntity)));
+    }
+
+    @Test
+    void saveProductShouldStoreImageThroughProductImageService() {
+        // given
+        ProductRequest requestWithImage = new ProductRequest(
+                null, "Name", "ShortDesc", "Descr", 1235L, 15.32, true,
+                new MockMultipartFile("productImage", "image.jpg", MediaType.IMAGE_JPEG_VALUE, "DATA".getBytes())
+        );
+        ImageFile storedImage = new ImageFile(9L, "stored.jpg", MediaType.IMAGE_JPEG_VALUE, "DATA".getBytes());
+        given(productImageService.acquireImage(any())).willReturn(storedImage);
+        given(productRepository.saveAndFlush(any())).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        ProductSummaryDto savedProduct = productService.saveProduct(requestWithImage);
+
+        // then
+        assertThat(savedProduct.imageId()).isEqualTo(9L);
+        verify(productImageService, times(1)).acquireImage(argThat(upload -> upload.getOriginalFilename().equals("image.jpg")));
+        verify(productRepository, times(1)).saveAndFlush(argThat(product -> product.getProductImage() == storedImage));
+        verify(productImageService, never()).releaseImage(any());
     }
 
     @Test
     void saveProductShouldThrowResourceAlreadyExistsException() {
         // given
         String productName = productRequest.name();
-        given(productRepository.existsByName(productName)).willReturn(true);
+        given(productRepository.saveAndFlush(any())).willThrow(new DataIntegrityViolationException(
+                "could not execute statement",
+                new ConstraintViolationException("duplicate key", new SQLException("duplicate key", "23505"), "uk_name")
+        ));
 
         // when
         // then
         assertThatThrownBy(() -> productService.saveProduct(productRequest))
                 .isInstanceOf(ResourceAlreadyExistsException.class)
                         .hasMessage(String.format(ProductService.PRODUCT_WITH_GIVEN_NAME_EXISTS_STRING, productName));
-        verify(productRepository, times(1)).existsByName(productName);
-        verify(productRepository, never()).save(any());
+        verify(productRepository, never()).existsByName(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void saveProductShouldRethrowOtherIntegrityViolations() {
+        // given
+        DataIntegrityViolationException notNullViolation = new DataIntegrityViolationException(
+                "could not execute statement",
+                new ConstraintViolationException("null value", new SQLException("null value", "23502"), null)
+        );
+        given(productRepository.saveAndFlush(any())).willThrow(notNullViolation);
+
+        // when
+        // then
+        assertThatThrownBy(() -> productService.saveProduct(productRequest)).isSameAs(notNullViolation);
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -209,18 +509,63 @@ class ProductServiceTest {
 
         given(productRepository.findById(productId)).willReturn(Optional.of(this.product));
         given(productRepository.existsByName(productRequest.name())).willReturn(false);
-        given(productRepository.save(any())).willReturn(productToUpdate);
+        given(productRepository.saveAndFlush(any())).willReturn(productToUpdate);
 
         // when
-        ProductDto updatedProductDto = productService.updateProduct(productId, productRequest);
+        ProductSummaryDto updatedProduct = productService.updateProduct(productId, productRequest, null);
 
         // then
-        assertThat(updatedProductDto)
+        assertThat(updatedProduct)
                 .isNotNull()
-                .isEqualTo(productMapper.productToProductDto(productToUpdate));
+                .isEqualTo(productMapper.productToProductSummaryDto(productToUpdate));
         verify(productRepository, times(1)).findById(productId);
         verify(productRepository, times(1)).existsByName(productRequest.name());
-        verify(productRepository, times(1)).save(any());
+        verify(productRepository, times(1)).saveAndFlush(any());
+        verify(eventPublisher, times(1))
+                .publishEvent(ProductChangedEvent.updated(productMapper.productToProductSummaryDto(productToUpdate)));
+    }
+
+    @Test
+    void updateProductKeepingImageShouldNotReadImageData() {
+        // given
+        Long productId = this.product.getId();
+        ImageFile currentImage = mock(ImageFile.class);
+        given(currentImage.getId()).willReturn(3L);
+        this.product.setProductImage(currentImage);
+        given(productRepository.findById(productId)).willReturn(Optional.of(this.product));
+        given(productRepository.existsByName(productRequest.name())).willReturn(false);
+        given(productRepository.saveAndFlush(any())).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        ProductSummaryDto updatedProduct = productService.updateProduct(productId, productRequest, null);
+
+        // then
+        assertThat(updatedProduct.imageId()).isEqualTo(3L);
+        verify(currentImage, never()).getData();
+        verify(productImageService, never()).releaseImage(any());
+    }
+
+    @Test
+    void updateProductWithNewImageShouldReleasePreviousImage() {
+        // given
+        Long productId = this.product.getId();
+        this.product.getProductImage().setId(3L);
+        ProductRequest requestWithImage = new ProductRequest(
+                null, "Name", "ShortDesc", "Descr", 1235L, 15.32, true,
+                new MockMultipartFile("productImage", "image.jpg", MediaType.IMAGE_JPEG_VALUE, "NEW".getBytes())
+        );
+        ImageFile storedImage = new ImageFile(9L, "image.jpg", MediaType.IMAGE_JPEG_VALUE, "NEW".getBytes());
+        given(productRepository.findById(productId)).willReturn(Optional.of(this.product));
+        given(productRepository.existsByName(requestWithImage.name())).willReturn(false);
+        given(productImageService.acquireImage(any())).willReturn(storedImage);
+        given(productRepository.saveAndFlush(any())).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        productService.updateProduct(productId, requestWithImage, null);
+
+        // then
+        verify(productRepository, times(1)).saveAndFlush(argThat(product -> product.getProductImage() == storedImage));
+        verify(productImageService, times(1)).releaseImage(3L);
     }
 
     @Test
@@ -232,12 +577,30 @@ class ProductServiceTest {
 
         // when
         // then
-        assertThatThrownBy(() -> productService.updateProduct(productId, productRequest))
+        assertThatThrownBy(() -> productService.updateProduct(productId, productRequest, null))
                 .isInstanceOf(ResourceAlreadyExistsException.class)
                 .hasMessage(String.format(ProductService.PRODUCT_WITH_GIVEN_NAME_EXISTS_STRING, productRequest.name()));
         verify(productRepository, times(1)).findById(productId);
         verify(productRepository, times(1)).existsByName(productRequest.name());
-        verify(productRepository, never()).save(any());
+        verify(productRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void updateProductShouldThrowApiPreconditionFailedExceptionForStaleVersion() {
+        // given
+        Long productId = this.product.getId();
+        this.product.setVersion(4L);
+        given(productRepository.findById(productId)).willReturn(Optional.of(this.product));
+
+        // when
+        // then
+        assertThatThrownBy(() -> productService.updateProduct(productId, productRequest, 3L))
+                .isInstanceOf(ApiPreconditionFailedException.class)
+                .hasMessage(String.format(ProductService.PRODUCT_VERSION_MISMATCH_STRING, productId, 3L))
+                .extracting("eTag")
+                .isEqualTo("\"4\"");
+        verify(productRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -248,40 +611,221 @@ class ProductServiceTest {
 
         // when
         // then
-        assertThatThrownBy(() -> productService.updateProduct(productId, productRequest))
+        assertThatThrownBy(() -> productService.updateProduct(productId, productRequest, null))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage(String.format(ProductService.PRODUCT_BY_ID_NOT_FOUND_STRING, productId));
         verify(productRepository, times(1)).findById(productId);
         verify(productRepository, never()).existsByName(any());
+        verify(productRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void shouldPatchOnlyGivenFieldsOfManagedProduct() {
+        // given
+        Long productId = this.product.getId();
+        ImageFile image = this.product.getProductImage();
+        String name = this.product.getName();
+        given(productRepository.findById(productId)).willReturn(Optional.of(this.product));
+
+        // when
+        ProductSummaryDto result = productService.patchProduct(
+                productId, new ProductPatchRequest(null, null, null, 3L, 9.99, null), null
+        );
+
+        // then
+        assertThat(result.quantity()).isEqualTo(3L);
+        assertThat(result.price()).isEqualTo(9.99);
+        assertThat(result.name()).isEqualTo(name);
+        assertThat(this.product.getProductImage()).isSameAs(image);
+        verify(productRepository, times(1)).flush();
         verify(productRepository, never()).save(any());
+        verify(productRepository, never()).existsByName(any());
+        verify(eventPublisher, times(1)).publishEvent(ProductChangedEvent.updated(result));
+    }
+
+    @Test
+    void patchProductShouldThrowResourceAlreadyExistsExceptionForTakenName() {
+        // given
+        Long productId = this.product.getId();
+        given(productRepository.findById(productId)).willReturn(Optional.of(this.product));
+        given(productRepository.existsByName("Taken")).willReturn(true);
+
+        // when
+        // then
+        assertThatThrownBy(() -> productService.patchProduct(
+                productId, new ProductPatchRequest("Taken", null, null, null, null, null), null
+        ))
+                .isInstanceOf(ResourceAlreadyExistsException.class)
+                .hasMessage(String.format(ProductService.PRODUCT_WITH_GIVEN_NAME_EXISTS_STRING, "Taken"));
+        verify(productRepository, never()).flush();
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void patchProductShouldThrowApiPreconditionFailedExceptionForStaleVersion() {
+        // given
+        Long productId = this.product.getId();
+        this.product.setVersion(2L);
+        given(productRepository.findById(productId)).willReturn(Optional.of(this.product));
+
+        // when
+        // then
+        assertThatThrownBy(() -> productService.patchProduct(
+                productId, new ProductPatchRequest(null, null, null, null, 1.0, null), 1L
+        ))
+                .isInstanceOf(ApiPreconditionFailedException.class)
+                .hasMessage(String.format(ProductService.PRODUCT_VERSION_MISMATCH_STRING, productId, 1L))
+                .extracting("eTag")
+                .isEqualTo("\"2\"");
+        assertThat(this.product.getPrice()).isNotEqualTo(1.0);
     }
 
     @Test
     void shouldDeleteProduct() {
         // given
         Long productId = this.product.getId();
-        given(productRepository.existsById(productId)).willReturn(true);
+        this.product.getProductImage().setId(3L);
+        given(productRepository.findById(productId)).willReturn(Optional.of(this.product));
 
         // when
         productService.deleteProduct(productId);
 
         // then
-        verify(productRepository, times(1)).existsById(productId);
-        verify(productRepository, times(1)).deleteById(productId);
+        verify(productRepository, times(1)).findById(productId);
+        verify(productRepository, times(1)).delete(this.product);
+        verify(productImageService, times(1)).releaseImage(3L);
+        verify(eventPublisher, times(1)).publishEvent(ProductChangedEvent.deleted(productId));
     }
 
     @Test
     void deleteProductShouldThrowResourceNotFoundException() {
         // given
         Long productId = this.product.getId();
-        given(productRepository.existsById(productId)).willReturn(false);
+        given(productRepository.findById(productId)).willReturn(Optional.empty());
 
         // when
         // then
         assertThatThrownBy(() -> productService.deleteProduct(productId))
                 .isInstanceOf(ResourceNotFoundException.class)
                         .hasMessage(String.format(ProductService.PRODUCT_BY_ID_NOT_FOUND_STRING, productId));
-        verify(productRepository, times(1)).existsById(productId);
-        verify(productRepository, never()).deleteById(productId);
+        verify(productRepository, times(1)).findById(productId);
+        verify(productRepository, never()).delete(any());
+        verifyNoInteractions(productImageService, eventPublisher);
+    }
+
+    @Test
+    void shouldReserveStockAndPublishUpdatedProduct() {
+        // given
+        Long productId = this.product.getId();
+        given(productRepository.reserveStock(productId, 2L)).willReturn(1);
+        given(productRepository.findById(productId)).willReturn(Optional.of(this.product));
+        ProductSummaryDto expected = productMapper.productToProductSummaryDto(this.product);
+
+        // when
+        ProductSummaryDto result = productService.reserveStock(productId, 2L);
+
+        // then
+        assertThat(result).isEqualTo(expected);
+        verify(eventPublisher, times(1)).publishEvent(ProductChangedEvent.updated(expected));
+    }
+
+    @Test
+    void reserveStockShouldThrowApiConflictExceptionWhenStockIsInsufficient() {
+        // given
+        Long productId = this.product.getId();
+        given(productRepository.reserveStock(productId, 2L)).willReturn(0);
+        given(productRepository.existsById(productId)).willReturn(true);
+
+        // when
+        // then
+        assertThatThrownBy(() -> productService.reserveStock(productId, 2L))
+                .isInstanceOf(ApiConflictException.class)
+                .hasMessage(String.format(ProductService.INSUFFICIENT_STOCK_STRING, productId, 2L));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void reserveStockShouldThrowResourceNotFoundException() {
+        // given
+        Long productId = this.product.getId();
+        given(productRepository.reserveStock(productId, 2L)).willReturn(0);
+        given(productRepository.existsById(productId)).willReturn(false);
+
+        // when
+        // then
+        assertThatThrownBy(() -> productService.reserveStock(productId, 2L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage(String.format(ProductService.PRODUCT_BY_ID_NOT_FOUND_STRING, productId));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void shouldReserveHotProductStockInMemory() {
+        // given
+        Long productId = this.product.getId();
+        ProductSummaryDto summary = productMapper.productToProductSummaryDto(this.product);
+        StripedStockCounter counter = new StripedStockCounter(4, 15, 0);
+        given(hotStockCounters.find(productId)).willReturn(counter);
+        given(hotStockCounters.tryReserve(productId, counter, 15L)).willReturn(counter.tryReserve(15L));
+        given(productCatalogCache.getCatalog()).willReturn(ProductCatalog.of(List.of(summary)));
+
+        // when
+        ProductSummaryDto result = productService.reserveStock(productId, 15L);
+
+        // then
+        assertThat(result.quantity()).isZero();
+        assertThat(result.isAvailable()).isFalse();
+        verify(productRepository, never()).reserveStock(any(), anyLong());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void reserveHotProductStockShouldThrowApiConflictExceptionWhenStockIsInsufficient() {
+        // given
+        Long productId = this.product.getId();
+        StripedStockCounter counter = new StripedStockCounter(4, 1, 0);
+        given(hotStockCounters.find(productId)).willReturn(counter);
+        given(hotStockCounters.tryReserve(productId, counter, 2L)).willReturn(false);
+
+        // when
+        // then
+        assertThatThrownBy(() -> productService.reserveStock(productId, 2L))
+                .isInstanceOf(ApiConflictException.class)
+                .hasMessage(String.format(ProductService.INSUFFICIENT_STOCK_STRING, productId, 2L));
+        verifyNoInteractions(productRepository, eventPublisher);
+    }
+
+    @Test
+    void shouldReleaseStockAndPublishProductReadInSameTransaction() {
+        // given
+        Long productId = this.product.getId();
+        given(productRepository.releaseStock(productId, 2L)).willReturn(1);
+        given(productRepository.findById(productId)).willReturn(Optional.of(this.product));
+        ProductSummaryDto expected = productMapper.productToProductSummaryDto(this.product);
+
+        // when
+        ProductSummaryDto result = productService.releaseStock(productId, 2L);
+
+        // then
+        assertThat(result).isEqualTo(expected);
+        InOrder inOrder = inOrder(transactionTemplate, productRepository, eventPublisher);
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(productRepository).releaseStock(productId, 2L);
+        inOrder.verify(productRepository).findById(productId);
+        inOrder.verify(eventPublisher).publishEvent(ProductChangedEvent.updated(expected));
+    }
+
+    @Test
+    void releaseStockShouldThrowResourceNotFoundException() {
+        // given
+        Long productId = this.product.getId();
+        given(productRepository.releaseStock(productId, 2L)).willReturn(0);
+
+        // when
+        // then
+        assertThatThrownBy(() -> productService.releaseStock(productId, 2L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage(String.format(ProductService.PRODUCT_BY_ID_NOT_FOUND_STRING, productId));
+        verifyNoInteractions(eventPublisher);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,141 @@
+package com.filip.managementapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedStockCounterTest {
+
+    @Test
+    void tryReserveShouldNeverOversellUnderConcurrentReservations() throws Exception {
+        // given
+        StripedStockCounter counter = new StripedStockCounter(4, 1000, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Integer>> buyers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            buyers.add(() -> {
+                int reserved = 0;
+                for (int j = 0; j < 500; j++) {
+                    if (counter.tryReserve(1)) {
+                        reserved++;
+                    }
+                }
+                return reserved;
+            });
+        }
+
+        // when
+        int reserved = 0;
+        try {
+            for (Future<Integer> result : executor.invokeAll(buyers)) {
+                reserved += result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // then
+        assertThat(reserved).isEqualTo(1000);
+        assertThat(counter.available()).isZero();
+        assertThat(counter.pending()).isEqualTo(1000);
+    }
+
+    @Test
+    void tryReserveShouldTakeItemsFromSeveralStripes() {
+        // given
+        StripedStockCounter counter = new StripedStockCounter(4, 10, 0);
+
+        // when
+        boolean reserved = counter.tryReserve(9);
+
+        // then
+        assertThat(reserved).isTrue();
+        assertThat(counter.available()).isEqualTo(1);
+        assertThat(counter.tryReserve(2)).isFalse();
+        assertThat(counter.available()).isEqualTo(1);
+    }
+
+    @Test
+    void releaseShouldReturnItemsAndReducePendingDelta() {
+        // given
+        StripedStockCounter counter = new StripedStockCounter(4, 10, 0);
+        counter.tryReserve(3);
+
+        // when
+        counter.release(1);
+
+        // then
+        assertThat(counter.available()).isEqualTo(8);
+        assertThat(counter.pending()).isEqualTo(2);
+        counter.settle(2);
+        assertThat(counter.pending()).isZero();
+    }
+
+    @Test
+    void reconcileShouldApplyNewerStoredChangeAsDifference() {
+        // given
+        StripedStockCounter counter = new StripedStockCounter(4, 10, 5);
+        counter.tryReserve(4);
+
+        // when
+        counter.reconcile(30, 6);
+        counter.reconcile(20, 6);
+
+        // then
+        assertThat(counter.available()).isEqualTo(26);
+    }
+
+    @Test
+    void recordFlushShouldApplyChangesStoredBetweenFlushes() {
+        // given
+        StripedStockCounter counter = new StripedStockCounter(4, 10, 5);
+        counter.tryReserve(4);
+        long delta = counter.pending();
+
+        // when
+        // another change set the stored quantity to 20 at version 6 before the flush wrote version 7
+        counter.recordFlush(delta, 16, 7);
+        counter.reconcile(20, 6);
+
+        // then
+        assertThat(counter.available()).isEqualTo(16);
+    }
+
+    @Test
+    void recordFlushShouldKeepStockWhenOnlyTheFlushWasStored() {
+        // given
+        StripedStockCounter counter = new StripedStockCounter(4, 10, 5);
+        counter.tryReserve(4);
+        long delta = counter.pending();
+
+        // when
+        counter.recordFlush(delta, 6, 6);
+        counter.reconcile(6, 6);
+
+        // then
+        assertThat(counter.available()).isEqualTo(6);
+    }
+
+    @Test
+    void recordFlushShouldNotGoBelowZeroWhenQuantityWasLoweredBelowReservations() {
+        // given
+        StripedStockCounter counter = new StripedStockCounter(4, 10, 5);
+        counter.tryReserve(4);
+        long delta = counter.pending();
+        counter.reconcile(2, 6);
+
+        // when
+        // the write stops at zero instead of storing 2 - 4
+        counter.recordFlush(delta, 0, 7);
+
+        // then
+        assertThat(counter.available()).isZero();
+    }
+}
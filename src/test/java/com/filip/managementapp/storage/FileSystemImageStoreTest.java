@@ -0,0 +1,134 @@
+package com.filip.managementapp.storage;
+
+import com.filip.managementapp.model.ImageFile;
+import com.filip.managementapp.repository.ImageFileRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileSystemImageStoreTest {
+
+    @Mock
+    private ImageFileRepository imageFileRepository;
+
+    @TempDir
+    private Path directory;
+
+    private FileSystemImageStore imageStore;
+
+    @BeforeEach
+    void setUp() {
+        imageStore = new FileSystemImageStore(imageFileRepository, directory.toString());
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void shouldStoreDataOnDiskAndOnlyMetadataInRow() throws IOException {
+        // given
+        ImageFile storedImage = newImage();
+        storedImage.setId(1005L);
+
+        // when
+        imageStore.store(storedImage, new ByteArrayInputStream("0123456789".getBytes()));
+
+        // then
+        assertThat(storedImage.getData()).isNull();
+        verifyNoInteractions(imageFileRepository);
+        assertThat(directory.resolve("005").resolve("1005")).hasContent("0123456789");
+        assertThat(new String(imageStore.read(storedImage))).isEqualTo("0123456789");
+    }
+
+    @Test
+    void shouldCopyRequestedRangeFromFile() throws IOException {
+        // given
+        Files.createDirectories(directory.resolve("007"));
+        Files.writeString(directory.resolve("007").resolve("7"), "0123456789");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        imageStore.copy(7L, 2, 5, outputStream);
+
+        // then
+        assertThat(outputStream.toString()).isEqualTo("23456");
+        verifyNoInteractions(imageFileRepository);
+    }
+
+    @Test
+    void shouldCopyImagesStoredBeforeSwitchFromDatabase() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        imageStore.copy(7L, 0, 4, outputStream);
+
+        // then
+        verify(imageFileRepository, times(1)).copyImageData(7L, 0, 4, outputStream);
+    }
+
+    @Test
+    void shouldRemoveWrittenFileWhenTransactionRollsBack() {
+        // given
+        ImageFile storedImage = newImage();
+        storedImage.setId(3L);
+        imageStore.store(storedImage, new ByteArrayInputStream("DATA".getBytes()));
+
+        // when
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // then
+        assertThat(directory.resolve("003").resolve("3")).doesNotExist();
+    }
+
+    @Test
+    void shouldDeleteFileOnlyAfterCommit() throws IOException {
+        // given
+        Path path = directory.resolve("009").resolve("9");
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, "DATA");
+
+        // when
+        imageStore.delete(9L);
+
+        // then
+        assertThat(path).exists();
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(path).doesNotExist();
+    }
+
+    private ImageFile newImage() {
+        return new ImageFile(null, "image.jpg", MediaType.IMAGE_JPEG_VALUE, null);
+    }
+
+    private void completeTransaction(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+}
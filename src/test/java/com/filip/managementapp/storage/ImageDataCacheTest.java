@@ -0,0 +1,105 @@
+package com.filip.managementapp.storage;
+
+import com.filip.managementapp.dto.ImageFileMetadata;
+import com.filip.managementapp.model.ImageVariantSize;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageDataCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ImageDataCache imageDataCache;
+
+    private final AtomicInteger sourceReads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        imageDataCache = new ImageDataCache(meterRegistry, 10, 6, Runnable::run);
+    }
+
+    @Test
+    void shouldServeRangesOfCachedImageWithoutReadingSource() throws IOException {
+        ImageFileMetadata image = image(1L, null, "012345");
+
+        assertThat(write(image, 0, 6)).isEqualTo("012345");
+        assertThat(write(image, 2, 3)).isEqualTo("234");
+
+        assertThat(sourceReads).hasValue(1);
+        assertThat(imageDataCache.usedBytes()).isEqualTo(6);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "productImages").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldNotCachePartialReads() throws IOException {
+        ImageFileMetadata image = image(1L, null, "012345");
+
+        assertThat(write(image, 1, 2)).isEqualTo("12");
+        assertThat(write(image, 1, 2)).isEqualTo("12");
+
+        assertThat(sourceReads).hasValue(2);
+        assertThat(imageDataCache.usedBytes()).isZero();
+    }
+
+    @Test
+    void shouldNotCacheImagesAboveEntryLimit() throws IOException {
+        ImageFileMetadata image = image(1L, null, "0123456789");
+
+        write(image, 0, 10);
+        write(image, 0, 10);
+
+        assertThat(sourceReads).hasValue(2);
+    }
+
+    @Test
+    void shouldKeepOriginalAndVariantApartAndEvictOriginal() throws IOException {
+        ImageFileMetadata original = image(1L, null, "ORIG");
+        ImageFileMetadata thumbnail = image(1L, ImageVariantSize.THUMBNAIL, "TH");
+
+        write(original, 0, 4);
+        assertThat(write(thumbnail, 0, 2)).isEqualTo("TH");
+        imageDataCache.evict(1L);
+        write(original, 0, 4);
+        write(thumbnail, 0, 2);
+
+        assertThat(sourceReads).hasValue(3);
+    }
+
+    @Test
+    void shouldStayWithinByteBound() throws IOException {
+        for (long id = 1; id <= 5; id++) {
+            write(image(id, null, "0123"), 0, 4);
+        }
+
+        assertThat(imageDataCache.usedBytes()).isLessThanOrEqualTo(10);
+        assertThat(meterRegistry.get("cache.weighted.size").gauge().value()).isLessThanOrEqualTo(10);
+    }
+
+    private ImageFileMetadata image(Long id, ImageVariantSize variant, String content) {
+        return new ImageFileMetadata(id, content, MediaType.IMAGE_JPEG_VALUE, content.length(), variant);
+    }
+
+    private String write(ImageFileMetadata image, long offset, long length) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        imageDataCache.write(image, offset, length, outputStream, (sourceOffset, sourceLength, target) -> {
+            sourceReads.incrementAndGet();
+            copy(image.filename(), sourceOffset, sourceLength, target);
+        });
+        return outputStream.toString();
+    }
+
+    private void copy(String content, long offset, long length, OutputStream outputStream) throws IOException {
+        outputStream.write(content.getBytes(), (int) offset, (int) length);
+    }
+}